@@ -0,0 +1,157 @@
+package com.customemoji;
+
+import static com.customemoji.Result.Error;
+import static com.customemoji.Result.Ok;
+import static com.customemoji.Result.PartialOk;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import lombok.NonNull;
+
+/**
+ * Reads the optional alias manifest of a folder. One alias per line, {@code #} starts a comment:
+ * <pre>
+ * lol = kekw
+ * lul = kekw
+ * good game = gg
+ * </pre>
+ * The left side is the new trigger, a word or a phrase, and the right side is the name of an existing emoji or
+ * soundoji. Subfolders can have their own manifest.
+ */
+final class Aliases
+{
+	static final String FILE_NAME = "aliases.txt";
+
+	// same sanity guard as the folder scan
+	private static final int MAX_DEPTH = 8;
+
+	private static final Pattern WHITESPACE = Pattern.compile("[\\s\\u00A0]+");
+
+	private Aliases() {}
+
+	/**
+	 * Reads the manifest of {@code root} and of every folder below it. When two define the same alias the one
+	 * closer to {@code root} wins.
+	 *
+	 * @return alias to target, both normalized
+	 */
+	static Result<Map<String, String>, List<Throwable>> readTree(@NonNull File root)
+	{
+		Map<String, String> aliases = new LinkedHashMap<>();
+		List<Throwable> errors = new ArrayList<>();
+
+		// breadth first, so shallower manifests are read first
+		Deque<File> folders = new ArrayDeque<>(List.of(root));
+		Deque<Integer> depths = new ArrayDeque<>(List.of(0));
+		while (!folders.isEmpty())
+		{
+			File folder = folders.poll();
+			int depth = depths.poll();
+
+			var result = read(folder);
+			result.ifOk(map -> map.forEach(aliases::putIfAbsent));
+			result.ifError(errors::addAll);
+
+			File[] children = depth < MAX_DEPTH ? folder.listFiles(File::isDirectory) : null;
+			if (children != null)
+			{
+				Arrays.sort(children);
+				for (File child : children)
+				{
+					folders.add(child);
+					depths.add(depth + 1);
+				}
+			}
+		}
+
+		if (errors.isEmpty())
+		{
+			return Ok(aliases);
+		}
+		else
+		{
+			return PartialOk(aliases, errors);
+		}
+	}
+
+	/**
+	 * @return alias to target, both normalized. Empty if the folder has no manifest.
+	 */
+	static Result<Map<String, String>, List<Throwable>> read(@NonNull File folder)
+	{
+		File file = new File(folder, FILE_NAME);
+		if (!file.isFile())
+		{
+			return Ok(Map.of());
+		}
+
+		List<String> lines;
+		try
+		{
+			lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		} catch (IOException e)
+		{
+			return Error(List.of(new IOException("<col=FF0000>" + file.getName() + "</col> failed because <col=FF0000>" +
+					e.getMessage(), e)));
+		}
+
+		Map<String, String> aliases = new LinkedHashMap<>();
+		List<Throwable> errors = new ArrayList<>();
+		for (int i = 0; i < lines.size(); i++)
+		{
+			String line = lines.get(i);
+			int comment = line.indexOf('#');
+			if (comment >= 0)
+			{
+				line = line.substring(0, comment);
+			}
+			if (line.isBlank())
+			{
+				continue;
+			}
+
+			int equals = line.indexOf('=');
+			String alias = equals < 0 ? "" : normalize(line.substring(0, equals));
+			String target = equals < 0 ? "" : normalize(line.substring(equals + 1));
+			if (alias.isEmpty() || target.isEmpty() || target.indexOf(' ') >= 0)
+			{
+				errors.add(new IllegalArgumentException("<col=FF0000>" + file.getName() + "</col> line " + (i + 1) +
+						" should look like <col=00FFFF>alias = emoji"));
+				continue;
+			}
+
+			aliases.put(alias, target);
+		}
+
+		if (errors.isEmpty())
+		{
+			return Ok(aliases);
+		}
+		else
+		{
+			return PartialOk(aliases, errors);
+		}
+	}
+
+	/**
+	 * Lower case, single spaced, the same way chat words are matched.
+	 */
+	static String normalize(String trigger)
+	{
+		return WHITESPACE.matcher(trigger.trim()).replaceAll(" ").toLowerCase();
+	}
+
+	static boolean isPhrase(String alias)
+	{
+		return alias.indexOf(' ') >= 0;
+	}
+}
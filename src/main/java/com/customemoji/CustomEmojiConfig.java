@@ -1,11 +1,13 @@
 package com.customemoji;
 
+import java.awt.event.KeyEvent;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
+import net.runelite.client.config.Keybind;
 import net.runelite.client.config.Range;
 
-@ConfigGroup("custom-emote")
+@ConfigGroup(CustomEmojiPlugin.CONFIG_GROUP)
 public interface CustomEmojiConfig extends Config
 {
 	@ConfigItem(
@@ -27,4 +29,88 @@ public interface CustomEmojiConfig extends Config
 	{
 		return 70;
 	}
+
+	@ConfigItem(
+		keyName = "normalizeSoundojis",
+		name = "Normalize Soundojis",
+		description = "Even out the loudness of soundojis from different sources."
+	)
+	default boolean normalizeSoundojis()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "statsLogInterval",
+		name = "Stats Log Interval",
+		description = "Minutes between dumping !emojistats to the client log. 0 to disable."
+	)
+	@Range(min = 0, max = 1440)
+	default int statsLogInterval()
+	{
+		return 0;
+	}
+
+	@ConfigItem(
+		keyName = "memoryBudget",
+		name = "Memory Budget (MiB)",
+		description = "Heap the plugin may use for decoded emojis and soundojis. Cold soundojis are unloaded and reloaded when played. 0 for unlimited."
+	)
+	@Range(min = 0, max = 4096)
+	default int memoryBudget()
+	{
+		return 128;
+	}
+
+	@ConfigItem(
+		keyName = "autocomplete",
+		name = "Autocomplete",
+		description = "Suggest emojis and soundojis matching the word being typed in the chatbox."
+	)
+	default boolean autocomplete()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "autocompleteAcceptKey",
+		name = "Accept Suggestion",
+		description = "Completes the typed word with the top autocomplete suggestion."
+	)
+	default Keybind autocompleteAcceptKey()
+	{
+		return new Keybind(KeyEvent.VK_TAB, 0);
+	}
+
+	@ConfigItem(
+		keyName = "syncUrl",
+		name = "Sync Manifest URL",
+		description = "Manifest of a remote emoji repository to sync on startup and with !emojisync. Leave empty to disable."
+	)
+	default String syncUrl()
+	{
+		return "";
+	}
+
+	@ConfigItem(
+		keyName = "overheadBudgetMicros",
+		name = "Overhead Budget (us)",
+		description = "Time per client tick spent replacing emojis in overhead text. The rest is finished on the following ticks. 0 for unlimited."
+	)
+	@Range(min = 0, max = 20000)
+	default int overheadBudgetMicros()
+	{
+		return 500;
+	}
+
+	@ConfigItem(
+		keyName = "prewarmCount",
+		name = "Prewarm Count",
+		description = "Most used emojis and soundojis to load before the plugin starts. The rest load in the background."
+	)
+	@Range(min = 0, max = 100000)
+	default int prewarmCount()
+	{
+		return 200;
+	}
 }
@@ -2,12 +2,18 @@ package com.customemoji;
 
 import static com.customemoji.Result.Error;
 import static com.customemoji.Result.Ok;
-import static com.customemoji.Result.PartialOk;
+import com.customemoji.Result.ResultFutures;
 import com.google.common.io.Resources;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Provides;
 import java.awt.Desktop;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -15,35 +21,58 @@ import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
-import javax.imageio.ImageIO;
 import javax.inject.Inject;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.FloatControl;
-import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.UnsupportedAudioFileException;
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Actor;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
 import net.runelite.api.MessageNode;
 import net.runelite.api.Player;
 import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.ClientTick;
 import net.runelite.api.events.OverheadTextChanged;
 import net.runelite.client.RuneLite;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.chat.ChatCommandManager;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.game.ChatIconManager;
+import net.runelite.client.input.KeyManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
+import net.runelite.client.ui.ClientToolbar;
+import net.runelite.client.ui.NavigationButton;
+import net.runelite.client.ui.overlay.OverlayManager;
+import net.runelite.client.util.ImageUtil;
 import net.runelite.client.util.Text;
 
 @Slf4j
@@ -54,22 +83,37 @@ import net.runelite.client.util.Text;
 )
 public class CustomEmojiPlugin extends Plugin
 {
+	public static final String CONFIG_GROUP = "custom-emote";
+
 	public static final String EMOJI_ERROR_COMMAND = "!emojierror";
 	public static final String EMOJI_FOLDER_COMMAND = "!emojifolder";
 	public static final String SOUNDOJI_FOLDER_COMMAND = "!soundojifolder";
+	public static final String EMOJI_STATS_COMMAND = "!emojistats";
+	public static final String EMOJI_SYNC_COMMAND = "!emojisync";
 
 	public static final File SOUNDOJIS_FOLDER = RuneLite.RUNELITE_DIR.toPath().resolve("soundojis").toFile();
 	public static final File EMOJIS_FOLDER = RuneLite.RUNELITE_DIR.toPath().resolve("emojis").toFile();
+	public static final File SYNC_FOLDER = RuneLite.RUNELITE_DIR.toPath().resolve("emoji-sync").toFile();
+	public static final File USAGE_FILE = RuneLite.RUNELITE_DIR.toPath().resolve("custom-emoji-usage.txt").toFile();
 
 	public static final URL EXAMPLE_EMOJI = Resources.getResource(CustomEmojiPlugin.class, "checkmark.png");
 	public static final URL EXAMPLE_SOUNDOJI = Resources.getResource(CustomEmojiPlugin.class, "customemoji.wav");
 
 	public static final float NOISE_FLOOR = -60f;
 
+	private static final long MIB = 1024 * 1024;
+
+	private static final int USAGE_SAVE_MINUTES = 10;
+
+	// a reloaded soundoji later than this is dropped instead of played out of place
+	private static final long MAX_RELOAD_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(300);
+
+	private static final int LOADER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
 	private static final Pattern WHITESPACE_REGEXP = Pattern.compile("[\\s\\u00A0]");
 
 	@Value
-	private static class Emoji
+	static class Emoji
 	{
 		int id;
 		String text;
@@ -78,11 +122,45 @@ public class CustomEmojiPlugin extends Plugin
 	}
 
 	@Value
-	private static class Soundoji
+	static class Phrase
 	{
 		String text;
-		Clip clip;
+		// lower case, first word is the key in the phrase table
+		String[] words;
+		@Nullable
+		Emoji emoji;
+		@Nullable
+		Soundoji soundoji;
+
+		Phrase merge(Phrase other)
+		{
+			return new Phrase(text, words,
+					emoji != null ? emoji : other.emoji,
+					soundoji != null ? soundoji : other.soundoji);
+		}
+	}
 
+	@Getter
+	@RequiredArgsConstructor
+	static class Soundoji
+	{
+		private final String text;
+		private final File file;
+		// compressed, null until loaded or after being evicted by the memory budget
+		@Nullable
+		private volatile ImaAdpcm sound;
+		// volume setting plus normalization, so playing is a single setValue
+		private volatile float gain;
+		// measured when the sound is decoded, NaN until then
+		private volatile float normalization = Float.NaN;
+		// set while the reload thread decodes it again after an eviction
+		@Getter(AccessLevel.NONE)
+		private final AtomicBoolean reloading = new AtomicBoolean();
+
+		String budgetKey()
+		{
+			return MemoryBudget.SOUNDOJI_PREFIX + text;
+		}
 	}
 
 	@Inject
@@ -103,13 +181,90 @@ public class CustomEmojiPlugin extends Plugin
 	@Inject
 	private ClientThread clientThread;
 
-	private final Map<String, Emoji> emojis = new HashMap<>();
-	private final Map<String, Soundoji> soundojis = new HashMap<>();
+	@Inject
+	private ScheduledExecutorService executor;
+
+	@Inject
+	private EmojiStats stats;
+
+	@Inject
+	private MemoryBudget budget;
+
+	@Inject
+	private OverlayManager overlayManager;
+
+	@Inject
+	private EmojiAutocompleteOverlay autocompleteOverlay;
+
+	@Inject
+	private KeyManager keyManager;
+
+	@Inject
+	private EmojiThumbnails thumbnails;
+
+	@Inject
+	private EmojiSync emojiSync;
+
+	@Inject
+	private OverheadRewriteScheduler overheadScheduler;
+
+	@Inject
+	private UsageCounts usage;
+
+	@Inject
+	private SoundojiPlayer player;
+
+	@Inject
+	private ClientToolbar clientToolbar;
+
+	@Getter(AccessLevel.PACKAGE)
+	private final Map<String, Emoji> emojis = new ConcurrentHashMap<>();
+	@Getter(AccessLevel.PACKAGE)
+	private final Map<String, Soundoji> soundojis = new ConcurrentHashMap<>();
+
+	@Getter(AccessLevel.PACKAGE)
+	private List<String> errors = new CopyOnWriteArrayList<>();
+
+	// alias to emoji/soundoji name, from each folder's alias manifest
+	private final Map<String, String> emojiAliases = new ConcurrentHashMap<>();
+	private final Map<String, String> soundojiAliases = new ConcurrentHashMap<>();
+	private final Set<String> reportedAliases = ConcurrentHashMap.newKeySet();
+
+	// compiled from the assets and aliases by compileTriggers(), swapped whole so readers never lock
+	private volatile Map<String, Emoji> emojiTriggers = Map.of();
+	private volatile Map<String, Soundoji> soundojiTriggers = Map.of();
+	private volatile Map<String, List<Phrase>> phrases = Map.of();
+
+	// sha256 of every synced asset currently loaded, keyed by kind and trigger
+	private final Map<String, String> syncedHashes = new ConcurrentHashMap<>();
+	private final AtomicBoolean syncing = new AtomicBoolean();
 
-	private List<String> errors = new ArrayList<>();
+	@Getter(AccessLevel.PACKAGE)
+	private volatile TriggerIndex triggerIndex = TriggerIndex.EMPTY;
 
 	private boolean loaded = false;
 
+	private final Object iconLock = new Object();
+
+	// soundojis evicted by the memory budget are decoded again here, never on the client thread
+	private final ExecutorService soundReloader = Executors.newSingleThreadExecutor(
+			new ThreadFactoryBuilder().setNameFormat("custom-emoji-reload").setDaemon(true).build());
+
+	// downloads can take a while, keep them off the client's shared executor
+	private final ExecutorService syncWorker = Executors.newSingleThreadExecutor(
+			new ThreadFactoryBuilder().setNameFormat("custom-emoji-sync").setDaemon(true).build());
+
+	private ScheduledFuture<?> statsLogTask;
+	private ScheduledFuture<?> usageSaveTask;
+
+	// null while the plugin is stopped
+	@Nullable
+	private volatile EmojiPanel panel;
+	private NavigationButton navigationButton;
+
+	// completes once the long tail of the folders has loaded in the background
+	private ListenableFuture<?> loadFuture = Futures.immediateFuture(null);
+
 
 	private void setup()
 	{
@@ -145,13 +300,32 @@ public class CustomEmojiPlugin extends Plugin
 	{
 		setup();
 
+		budget.setCeiling(config.memoryBudget() * MIB);
+		overheadScheduler.setBudgetNanos(TimeUnit.MICROSECONDS.toNanos(config.overheadBudgetMicros()));
+
 		if (!loaded)
 		{
-			loadEmojis();
-			loadSoundojis();
+			usage.load(USAGE_FILE);
+			int prewarm = config.prewarmCount();
+			loadFuture = Futures.whenAllComplete(
+					loadEmojis(EMOJIS_FOLDER, prewarm),
+					loadSoundojis(SOUNDOJIS_FOLDER, prewarm)).call(() -> null, MoreExecutors.directExecutor());
 			loaded = true;
 		}
 
+		overlayManager.add(autocompleteOverlay);
+		keyManager.registerKeyListener(autocompleteOverlay);
+
+		EmojiPanel panel = new EmojiPanel(thumbnails, this::previewSoundoji);
+		navigationButton = NavigationButton.builder()
+				.tooltip("Custom Emoji")
+				.icon(ImageUtil.loadImageResource(CustomEmojiPlugin.class, "checkmark.png"))
+				.priority(10)
+				.panel(panel)
+				.build();
+		clientToolbar.addNavigation(navigationButton);
+		this.panel = panel;
+		updatePanel();
 
 		chatCommandManager.registerCommandAsync(EMOJI_FOLDER_COMMAND,
 				(msg, text) ->
@@ -186,6 +360,43 @@ public class CustomEmojiPlugin extends Plugin
 					}
 				});
 
+		chatCommandManager.registerCommand(EMOJI_STATS_COMMAND,
+				(msg, text) ->
+				{
+					for (String line : stats.summary())
+					{
+						client.addChatMessage(ChatMessageType.CONSOLE, "", line, null);
+					}
+					for (String line : budget.summary())
+					{
+						client.addChatMessage(ChatMessageType.CONSOLE, "", line, null);
+					}
+					client.addChatMessage(ChatMessageType.CONSOLE, "",
+							String.format("Overhead rewrites deferred %d, dropped %d, pending %d",
+									overheadScheduler.getDeferred(), overheadScheduler.getDropped(),
+									overheadScheduler.pendingCount()), null);
+				});
+
+		chatCommandManager.registerCommand(EMOJI_SYNC_COMMAND, (msg, text) -> syncRemote());
+
+		scheduleStatsLog();
+		usageSaveTask = executor.scheduleAtFixedRate(() -> usage.save(USAGE_FILE),
+				USAGE_SAVE_MINUTES, USAGE_SAVE_MINUTES, TimeUnit.MINUTES);
+
+		// the summary and sync wait for the background part of the load
+		loadFuture.addListener(this::onLoaded, MoreExecutors.directExecutor());
+	}
+
+	private void onLoaded()
+	{
+		if (!config.syncUrl().isEmpty())
+		{
+			syncRemote();
+		}
+
+		budget.summary().forEach(line -> log.info("Custom Emoji: {}", line));
+		updatePanel();
+
 		if (!errors.isEmpty())
 		{
 			clientThread.invokeLater(() ->
@@ -201,7 +412,8 @@ public class CustomEmojiPlugin extends Plugin
 			clientThread.invoke(() ->
 			{
 				client.addChatMessage(ChatMessageType.CONSOLE, "",
-						"<col=00FF00>Custom Emoji: Loaded " + emojis.size() + soundojis.size() + " emojis and soundojis.", null);
+						"<col=00FF00>Custom Emoji: Loaded " + (emojis.size() + soundojis.size()) + " emojis and soundojis using " +
+								budget.getUsed() / MIB + " MiB.", null);
 			});
 		}
 	}
@@ -212,6 +424,75 @@ public class CustomEmojiPlugin extends Plugin
 		chatCommandManager.unregisterCommand(EMOJI_FOLDER_COMMAND);
 		chatCommandManager.unregisterCommand(SOUNDOJI_FOLDER_COMMAND);
 		chatCommandManager.unregisterCommand(EMOJI_ERROR_COMMAND);
+		chatCommandManager.unregisterCommand(EMOJI_STATS_COMMAND);
+		chatCommandManager.unregisterCommand(EMOJI_SYNC_COMMAND);
+
+		cancelStatsLog();
+		if (usageSaveTask != null)
+		{
+			usageSaveTask.cancel(false);
+			usageSaveTask = null;
+		}
+		usage.save(USAGE_FILE);
+
+		keyManager.unregisterKeyListener(autocompleteOverlay);
+		overlayManager.remove(autocompleteOverlay);
+		clientToolbar.removeNavigation(navigationButton);
+		navigationButton = null;
+		panel = null;
+		thumbnails.clear();
+		overheadScheduler.clear();
+		player.close();
+	}
+
+	@Subscribe
+	public void onConfigChanged(ConfigChanged event)
+	{
+		if (!CONFIG_GROUP.equals(event.getGroup()))
+		{
+			return;
+		}
+
+		switch (event.getKey())
+		{
+			case "statsLogInterval":
+				scheduleStatsLog();
+				break;
+			case "memoryBudget":
+				budget.setCeiling(config.memoryBudget() * MIB);
+				break;
+			case "volume":
+			case "normalizeSoundojis":
+				updateGains();
+				break;
+			case "overheadBudgetMicros":
+				overheadScheduler.setBudgetNanos(TimeUnit.MICROSECONDS.toNanos(config.overheadBudgetMicros()));
+				break;
+		}
+	}
+
+	private void scheduleStatsLog()
+	{
+		cancelStatsLog();
+
+		int minutes = config.statsLogInterval();
+		if (minutes <= 0)
+		{
+			return;
+		}
+
+		statsLogTask = executor.scheduleAtFixedRate(
+				() -> stats.summary().forEach(line -> log.info("Custom Emoji stats: {}", line)),
+				minutes, minutes, TimeUnit.MINUTES);
+	}
+
+	private void cancelStatsLog()
+	{
+		if (statsLogTask != null)
+		{
+			statsLogTask.cancel(false);
+			statsLogTask = null;
+		}
 	}
 
 
@@ -255,33 +536,76 @@ public class CustomEmojiPlugin extends Plugin
 			return;
 		}
 
-		final String message = event.getOverheadText();
+		final Actor actor = event.getActor();
+		if (!overheadScheduler.hasBudget())
+		{
+			overheadScheduler.defer(actor, event.getOverheadText());
+			return;
+		}
+
+		overheadScheduler.cancel(actor);
+		rewriteOverhead(actor, event.getOverheadText());
+	}
+
+	@Subscribe
+	public void onClientTick(ClientTick tick)
+	{
+		overheadScheduler.tick(this::rewriteOverhead);
+	}
+
+	private void rewriteOverhead(Actor actor, String message)
+	{
+		final long start = System.nanoTime();
 		final String updatedMessage = updateMessage(message, false);
 
-		if (updatedMessage == null)
+		if (updatedMessage != null)
 		{
-			return;
+			actor.setOverheadText(updatedMessage);
 		}
 
-		event.getActor().setOverheadText(updatedMessage);
+		overheadScheduler.charge(System.nanoTime() - start);
 	}
 
 	@Nullable
 	String updateMessage(final String message, boolean sound)
 	{
+		final EmojiEvents.Rewrite event = new EmojiEvents.Rewrite();
+		event.begin();
+		final long start = System.nanoTime();
 		final String[] messageWords = WHITESPACE_REGEXP.split(message);
 
+		final Map<String, Emoji> emojiTriggers = this.emojiTriggers;
+		final Map<String, Soundoji> soundojiTriggers = this.soundojiTriggers;
+		final Map<String, List<Phrase>> phrases = this.phrases;
+
+		int triggers = 0;
 		boolean editedMessage = false;
+		boolean removedWords = false;
 		for (int i = 0; i < messageWords.length; i++)
 		{
 			// Remove tags except for <lt> and <gt>
 			final String trigger = Text.removeFormattingTags(messageWords[i]);
 			//			final net.runelite.client.plugins.emojis.Emoji emoji = net.runelite.client.plugins.emojis.Emoji.getEmoji(trigger);
-			final Emoji emoji = emojis.get(trigger.toLowerCase());
-			final Soundoji soundoji = soundojis.get(trigger.toLowerCase());
+			final String key = trigger.toLowerCase();
+
+			final List<Phrase> candidates = phrases.get(key);
+			final Phrase phrase = candidates == null ? null : matchPhrase(candidates, messageWords, i);
+			if (phrase != null)
+			{
+				triggers++;
+				editedMessage = true;
+				removedWords |= replacePhrase(phrase, messageWords, i, trigger, sound);
+				i += phrase.words.length - 1;
+				continue;
+			}
+
+			final Emoji emoji = emojiTriggers.get(key);
+			final Soundoji soundoji = soundojiTriggers.get(key);
 
 			if (emoji != null)
 			{
+				stats.recordHit(emoji.text);
+				triggers++;
 				messageWords[i] = messageWords[i].replace(trigger,
 						"<img=" + chatIconManager.chatIconIndex(emoji.id) + ">");
 				editedMessage = true;
@@ -290,13 +614,11 @@ public class CustomEmojiPlugin extends Plugin
 
 			if (soundoji != null)
 			{
+				stats.recordHit(soundoji.text);
+				triggers++;
 				if (sound)
 				{
-					soundoji.clip.setFramePosition(0);
-					soundoji.clip.loop(0);
-					FloatControl control = (FloatControl) soundoji.clip.getControl(FloatControl.Type.MASTER_GAIN);
-					control.setValue(volumeToGain(config.volume()));
-					soundoji.clip.start();
+					playSoundoji(soundoji);
 				}
 				messageWords[i] = messageWords[i].replace(trigger, "*" + trigger + "*");
 				editedMessage = true;
@@ -306,27 +628,282 @@ public class CustomEmojiPlugin extends Plugin
 		}
 
 		// If we haven't edited the message any, don't update it.
-		if (!editedMessage)
+		final String updatedMessage = !editedMessage ? null
+				: removedWords ? joinWords(messageWords)
+				: String.join(" ", messageWords);
+
+		stats.recordRewrite(System.nanoTime() - start, editedMessage);
+		event.end();
+		if (event.shouldCommit())
+		{
+			event.length = message.length();
+			event.words = messageWords.length;
+			event.triggers = triggers;
+			event.sound = sound;
+			event.commit();
+		}
+
+		return updatedMessage;
+	}
+
+	@Nullable
+	private static Phrase matchPhrase(List<Phrase> candidates, String[] messageWords, int start)
+	{
+		// longest first, so "good game well played" beats "good game"
+		for (Phrase phrase : candidates)
+		{
+			if (start + phrase.words.length > messageWords.length)
+			{
+				continue;
+			}
+
+			boolean matches = true;
+			for (int k = 1; k < phrase.words.length && matches; k++)
+			{
+				matches = phrase.words[k].equalsIgnoreCase(Text.removeFormattingTags(messageWords[start + k]));
+			}
+
+			if (matches)
+			{
+				return phrase;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return true if any word was removed from {@code messageWords}
+	 */
+	private boolean replacePhrase(Phrase phrase, String[] messageWords, int start, String trigger, boolean sound)
+	{
+		final int end = start + phrase.words.length - 1;
+
+		// credit the assets, not the phrase, so usage ordering loads them early
+		if (phrase.emoji != null)
+		{
+			stats.recordHit(phrase.emoji.text);
+		}
+		if (phrase.soundoji != null)
+		{
+			stats.recordHit(phrase.soundoji.text);
+		}
+		if (phrase.soundoji != null && sound)
+		{
+			playSoundoji(phrase.soundoji);
+		}
+
+		if (phrase.emoji == null)
+		{
+			final String last = Text.removeFormattingTags(messageWords[end]);
+			messageWords[start] = messageWords[start].replace(trigger, "*" + trigger);
+			messageWords[end] = messageWords[end].replace(last, last + "*");
+			return false;
+		}
+
+		messageWords[start] = messageWords[start].replace(trigger,
+				"<img=" + chatIconManager.chatIconIndex(phrase.emoji.id) + ">");
+		log.debug("Replacing {} with emoji {}", phrase.text, phrase.emoji.text);
+
+		// keep the formatting tags of the words folded into the icon, on the icon's word so no stray space is left
+		final StringBuilder folded = new StringBuilder(messageWords[start]);
+		for (int k = start + 1; k <= end; k++)
+		{
+			folded.append(messageWords[k].replace(Text.removeFormattingTags(messageWords[k]), ""));
+			messageWords[k] = null;
+		}
+		messageWords[start] = folded.toString();
+		return true;
+	}
+
+	private static String joinWords(String[] messageWords)
+	{
+		final StringBuilder sb = new StringBuilder();
+		for (String word : messageWords)
+		{
+			if (word == null)
+			{
+				continue;
+			}
+			if (sb.length() > 0)
+			{
+				sb.append(' ');
+			}
+			sb.append(word);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Plays the soundoji of a trigger clicked in the panel, off the event dispatch thread
+	 * since an evicted soundoji has to be loaded again first.
+	 */
+	private void previewSoundoji(String trigger)
+	{
+		executor.execute(() ->
+		{
+			Soundoji soundoji = soundojiTriggers.get(trigger);
+			if (soundoji == null)
+			{
+				String[] words = trigger.split(" ");
+				soundoji = phrases.getOrDefault(words[0], List.of()).stream()
+						.filter(phrase -> phrase.text.equals(trigger))
+						.map(Phrase::getSoundoji)
+						.filter(Objects::nonNull)
+						.findFirst()
+						.orElse(null);
+			}
+
+			if (soundoji != null)
+			{
+				playSoundoji(soundoji);
+			}
+		});
+	}
+
+	private void playSoundoji(Soundoji soundoji)
+	{
+		EmojiEvents.SoundojiPlay event = new EmojiEvents.SoundojiPlay();
+		event.begin();
+		ImaAdpcm sound = soundoji.sound;
+		if (sound == null)
+		{
+			// evicted or deferred by the memory budget, decoding is too slow for the client thread
+			reloadSoundoji(soundoji, System.nanoTime());
+		}
+		else
+		{
+			budget.touch(soundoji.budgetKey());
+			event.dropped = !play(soundoji, sound);
+		}
+
+		event.end();
+		if (event.shouldCommit())
+		{
+			event.trigger = soundoji.text;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Loads the soundoji back in on the reload thread and plays it, unless that took so long it would be out of place.
+	 */
+	private void reloadSoundoji(Soundoji soundoji, long requested)
+	{
+		// the first play starts the reload, any more while it runs are dropped
+		if (!soundoji.reloading.compareAndSet(false, true))
+		{
+			stats.getSoundsDropped().increment();
+			return;
+		}
+
+		soundReloader.execute(() ->
+		{
+			try
+			{
+				var result = loadSound(soundoji);
+				result.ifOk(sound ->
+				{
+					attachSound(soundoji, sound);
+					if (System.nanoTime() - requested <= MAX_RELOAD_DELAY_NANOS)
+					{
+						play(soundoji, sound);
+					}
+					else
+					{
+						stats.getSoundsDropped().increment();
+					}
+				});
+				result.ifError(t ->
+				{
+					stats.getSoundsDropped().increment();
+					log.debug("Failed to reload soundoji {}", soundoji.text, t);
+				});
+			} finally
+			{
+				soundoji.reloading.set(false);
+			}
+		});
+	}
+
+	/**
+	 * @return false if the sound was dropped right away, every voice being busy
+	 */
+	private boolean play(Soundoji soundoji, ImaAdpcm sound)
+	{
+		return player.play(sound, soundoji.gain, this::countPlay);
+	}
+
+	private void countPlay(boolean played)
+	{
+		if (played)
 		{
-			return null;
+			stats.getSoundsPlayed().increment();
 		}
+		else
+		{
+			stats.getSoundsDropped().increment();
+		}
+	}
+
+	private void attachSound(Soundoji soundoji, ImaAdpcm sound)
+	{
+		updateGain(soundoji, volumeToGain(config.volume()));
+		soundoji.sound = sound;
+		budget.reserve(soundoji.budgetKey(), sound.memoryBytes(), () -> evictSound(soundoji));
+	}
+
+	private void updateGain(Soundoji soundoji, float volumeGain)
+	{
+		float normalization = soundoji.normalization;
+		float gain = volumeGain;
+		if (config.normalizeSoundojis() && !Float.isNaN(normalization))
+		{
+			gain += normalization;
+		}
+		// clamped by the voice playing it, the range depends on the line
+		soundoji.gain = gain;
+	}
+
+	private void updateGains()
+	{
+		float volumeGain = volumeToGain(config.volume());
+		soundojis.values().forEach(s -> updateGain(s, volumeGain));
+	}
 
-		return String.join(" ", messageWords);
+	private static boolean evictSound(Soundoji soundoji)
+	{
+		// a voice still playing it holds its own reference
+		soundoji.sound = null;
+		return true;
 	}
 
-	private void loadEmojis()
+	void loadEmojis(File emojiFolder)
+	{
+		Futures.getUnchecked(loadEmojis(emojiFolder, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * Loads the {@code prewarm} most used emojis before returning, the rest load in the background.
+	 *
+	 * @return completes once the background part has loaded too
+	 */
+	ListenableFuture<?> loadEmojis(File emojiFolder, int prewarm)
 	{
-		File emojiFolder = EMOJIS_FOLDER;
 		if (emojiFolder.mkdir())
 		{
 			log.error("Created emoji folder");
 		}
 
-		var result = loadEmojisFolder(emojiFolder);
+		loadAliases(emojiFolder, emojiAliases);
+		return loadFolder(emojiFolder, prewarm, this::loadEmoji, this::onEmojisLoaded);
+	}
+
+	private void onEmojisLoaded(Result<List<Emoji>, List<Throwable>> result)
+	{
 		result.ifOk(list ->
 		{
 			list.forEach(e -> emojis.put(e.text, e));
-			log.info("Loaded {} emojis", result.unwrap().size());
+			log.info("Loaded {} emojis", list.size());
 		});
 		result.ifError(e ->
 		{
@@ -336,21 +913,37 @@ public class CustomEmojiPlugin extends Plugin
 				errors.add(String.format("Failed to load emoji %s", t.getMessage()));
 			});
 		});
+
+		compileTriggers();
+	}
+
+	void loadSoundojis(File soundojiFolder)
+	{
+		Futures.getUnchecked(loadSoundojis(soundojiFolder, Integer.MAX_VALUE));
 	}
 
-	private void loadSoundojis()
+	/**
+	 * Loads the {@code prewarm} most used soundojis before returning, the rest load in the background.
+	 *
+	 * @return completes once the background part has loaded too
+	 */
+	ListenableFuture<?> loadSoundojis(File soundojiFolder, int prewarm)
 	{
-		File soundojiFolder = SOUNDOJIS_FOLDER;
 		if (soundojiFolder.mkdir())
 		{
 			log.error("Created soundoji folder");
 		}
 
-		var result = loadSoundojisFolder(soundojiFolder);
+		loadAliases(soundojiFolder, soundojiAliases);
+		return loadFolder(soundojiFolder, prewarm, this::loadSoundoji, this::onSoundojisLoaded);
+	}
+
+	private void onSoundojisLoaded(Result<List<Soundoji>, List<Throwable>> result)
+	{
 		result.ifOk(list ->
 		{
 			list.forEach(e -> soundojis.put(e.text, e));
-			log.info("Loaded {} soundojis", result.unwrap().size());
+			log.info("Loaded {} soundojis", list.size());
 		});
 		result.ifError(e ->
 		{
@@ -360,67 +953,335 @@ public class CustomEmojiPlugin extends Plugin
 				errors.add(String.format("Failed to load audio %s", t.getMessage()));
 			});
 		});
+
+		compileTriggers();
 	}
 
-	private Result<List<Soundoji>, List<Throwable>> loadSoundojisFolder(File soundojiFolder)
+	private void loadAliases(File folder, Map<String, String> aliases)
 	{
-		// recursively flattenFolder files in the folder
-		List<File> files = flattenFolder(soundojiFolder);
+		// every folder's manifest, just like the emojis in subfolders are loaded too
+		var result = Aliases.readTree(folder);
+		result.ifOk(map ->
+		{
+			aliases.putAll(map);
+			if (!map.isEmpty())
+			{
+				log.info("Loaded {} aliases from {}", map.size(), folder);
+			}
+		});
+		result.ifError(e ->
+		{
+			e.forEach(t ->
+			{
+				log.error("Failed to load aliases", t);
+				errors.add(String.format("Failed to load aliases %s", t.getMessage()));
+			});
+		});
+	}
+
+	/**
+	 * Starts a sync on the sync worker, unless one is running already.
+	 */
+	private void syncRemote()
+	{
+		String url = config.syncUrl();
+		if (url.isEmpty())
+		{
+			clientThread.invoke(() -> client.addChatMessage(ChatMessageType.CONSOLE, "",
+					"<col=FF0000>Custom Emoji: Set a sync url in the plugin config first.", null));
+			return;
+		}
+
+		// startup and !emojisync can ask at the same time, the second one would only race the first
+		if (!syncing.compareAndSet(false, true))
+		{
+			clientThread.invoke(() -> client.addChatMessage(ChatMessageType.CONSOLE, "",
+					"<col=00FF00>Custom Emoji: Already syncing.", null));
+			return;
+		}
+
+		syncWorker.execute(() ->
+		{
+			try
+			{
+				sync(url);
+			} finally
+			{
+				syncing.set(false);
+			}
+		});
+	}
+
+	private void sync(String url)
+	{
+		var result = emojiSync.sync(url, SYNC_FOLDER);
+		result.ifOk(synced ->
+		{
+			// a partial sync is missing assets that failed to download, those are kept rather than unloaded
+			int loaded = loadSynced(synced.getAssets(), !result.isError());
+			log.info("Synced {} assets from {}, downloaded {}, loaded {}",
+					synced.getAssets().size(), url, synced.getDownloaded(), loaded);
+			clientThread.invoke(() -> client.addChatMessage(ChatMessageType.CONSOLE, "",
+					"<col=00FF00>Custom Emoji: Synced " + synced.getAssets().size() + " emojis and soundojis, downloaded " +
+							synced.getDownloaded() + ".", null));
+		});
+		result.ifError(e ->
+		{
+			e.forEach(t ->
+			{
+				log.error("Failed to sync", t);
+				errors.add(String.format("Failed to sync %s", t.getMessage()));
+			});
+			clientThread.invoke(() -> client.addChatMessage(ChatMessageType.CONSOLE, "",
+					"<col=FF0000>Custom Emoji: There were " + e.size() +
+							" errors syncing.<br><col=FF0000>Use <col=00FFFF>!emojierror <col=FF0000>to see them.", null));
+		});
+	}
 
-		if (!soundojiFolder.isDirectory())
+	/**
+	 * Loads synced assets that aren't loaded yet or have changed since. A local file of the same name always
+	 * wins over a synced asset.
+	 *
+	 * @param complete whether {@code assets} is the whole manifest, so anything synced before and missing now
+	 *                 was removed from it and is unloaded
+	 * @return number of assets loaded or unloaded
+	 */
+	private int loadSynced(List<EmojiSync.SyncedAsset> assets, boolean complete)
+	{
+		int changed = 0;
+		Set<String> keys = new HashSet<>();
+		for (EmojiSync.SyncedAsset asset : assets)
 		{
-			return Error(List.of(new IllegalArgumentException("Not a folder " + soundojiFolder)));
+			String key = asset.getKind() + ":" + asset.getName();
+			keys.add(key);
+			if (asset.getSha256().equals(syncedHashes.get(key)))
+			{
+				continue;
+			}
+
+			if (asset.getKind() == EmojiSync.Kind.EMOJI)
+			{
+				Emoji previous = emojis.get(asset.getName());
+				if (previous != null && !isSynced(previous.file))
+				{
+					log.debug("Local emoji {} overrides the synced one", asset.getName());
+					continue;
+				}
+
+				// a changed emoji takes over the icon slot of the old one, the client can't free slots
+				var result = loadEmoji(asset.getFile(), asset.getName(), previous);
+				result.ifOk(e -> emojis.put(e.text, e));
+				result.ifOk(() -> syncedHashes.put(key, asset.getSha256()));
+				result.ifError(t ->
+				{
+					log.error("Failed to load synced emoji", t);
+					errors.add(String.format("Failed to load emoji %s", t.getMessage()));
+				});
+				changed += result.isOk() ? 1 : 0;
+			}
+			else
+			{
+				Soundoji previous = soundojis.get(asset.getName());
+				if (previous != null && !isSynced(previous.file))
+				{
+					log.debug("Local soundoji {} overrides the synced one", asset.getName());
+					continue;
+				}
+				if (previous != null)
+				{
+					// the new one may be deferred, don't leave the old audio counted against the budget
+					budget.release(previous.budgetKey());
+				}
+
+				var result = loadSoundoji(asset.getFile(), asset.getName());
+				result.ifOk(s -> soundojis.put(s.text, s));
+				result.ifOk(() -> syncedHashes.put(key, asset.getSha256()));
+				result.ifError(t ->
+				{
+					log.error("Failed to load synced soundoji", t);
+					errors.add(String.format("Failed to load audio %s", t.getMessage()));
+				});
+				changed += result.isOk() ? 1 : 0;
+			}
 		}
 
-		List<Soundoji> loaded = new ArrayList<>();
-		List<Throwable> errors = new ArrayList<>();
+		if (complete)
+		{
+			for (String key : new ArrayList<>(syncedHashes.keySet()))
+			{
+				if (!keys.contains(key))
+				{
+					unloadSynced(key);
+					changed++;
+				}
+			}
+		}
 
-		for (File file : files)
+		if (changed > 0)
 		{
-			Result<Soundoji, Throwable> result = loadSoundoji(file);
-			result.ifOk(loaded::add);
-			result.ifError(errors::add);
+			compileTriggers();
 		}
+		return changed;
+	}
 
-		if (errors.isEmpty())
+	/**
+	 * Unloads an asset removed from the manifest, unless a local file has replaced it since.
+	 */
+	private void unloadSynced(String key)
+	{
+		syncedHashes.remove(key);
+		String name = key.substring(key.indexOf(':') + 1);
+		if (key.startsWith(EmojiSync.Kind.EMOJI + ":"))
 		{
-			return Ok(loaded);
+			Emoji emoji = emojis.get(name);
+			if (emoji != null && isSynced(emoji.file) && emojis.remove(name, emoji))
+			{
+				// the icon slot stays registered, the client has no way to free one
+				budget.release(MemoryBudget.EMOJI_PREFIX + name);
+			}
 		}
 		else
 		{
-			return PartialOk(loaded, errors);
+			Soundoji soundoji = soundojis.get(name);
+			if (soundoji != null && isSynced(soundoji.file) && soundojis.remove(name, soundoji))
+			{
+				budget.release(soundoji.budgetKey());
+				soundoji.sound = null;
+			}
 		}
+		log.info("Unloaded {}, removed from the sync manifest", key);
 	}
 
-	private Result<List<Emoji>, List<Throwable>> loadEmojisFolder(File folder)
+	private static boolean isSynced(File file)
 	{
-		// recursively flattenFolder files in the folder
-		List<File> files = flattenFolder(folder);
+		return file.toPath().startsWith(SYNC_FOLDER.toPath());
+	}
 
-		if (!folder.isDirectory())
+	/**
+	 * Compiles file names and aliases into the trigger tables read by {@link #updateMessage}.
+	 * Aliases point at the already loaded asset, so they cost no decoding, icon or audio buffer of their own.
+	 */
+	private synchronized void compileTriggers()
+	{
+		Map<String, Emoji> emojiTriggers = new HashMap<>(emojis);
+		Map<String, Soundoji> soundojiTriggers = new HashMap<>(soundojis);
+		Map<String, Phrase> phrasesByText = new HashMap<>();
+
+		emojiAliases.forEach((alias, target) ->
+		{
+			Emoji emoji = emojis.get(target);
+			if (emoji == null)
+			{
+				reportMissingAlias(alias, "emoji", target);
+			}
+			else if (Aliases.isPhrase(alias))
+			{
+				phrasesByText.merge(alias, new Phrase(alias, alias.split(" "), emoji, null), Phrase::merge);
+			}
+			else
+			{
+				// an actual file wins over an alias
+				emojiTriggers.putIfAbsent(alias, emoji);
+			}
+		});
+
+		soundojiAliases.forEach((alias, target) ->
 		{
-			return Error(List.of(new IllegalArgumentException("Not a folder " + folder)));
+			Soundoji soundoji = soundojis.get(target);
+			if (soundoji == null)
+			{
+				reportMissingAlias(alias, "soundoji", target);
+			}
+			else if (Aliases.isPhrase(alias))
+			{
+				phrasesByText.merge(alias, new Phrase(alias, alias.split(" "), null, soundoji), Phrase::merge);
+			}
+			else
+			{
+				soundojiTriggers.putIfAbsent(alias, soundoji);
+			}
+		});
+
+		Map<String, List<Phrase>> phrases = new HashMap<>();
+		for (Phrase phrase : phrasesByText.values())
+		{
+			phrases.computeIfAbsent(phrase.words[0], k -> new ArrayList<>()).add(phrase);
 		}
+		phrases.values().forEach(list -> list.sort(Comparator.comparingInt((Phrase p) -> p.words.length).reversed()));
+
+		this.emojiTriggers = emojiTriggers;
+		this.soundojiTriggers = soundojiTriggers;
+		this.phrases = phrases;
+
+		List<TriggerIndex.Entry> entries = new ArrayList<>(emojiTriggers.size() + soundojiTriggers.size() + phrasesByText.size());
+		emojiTriggers.forEach((trigger, e) -> entries.add(new TriggerIndex.Entry(trigger, e.file, false)));
+		soundojiTriggers.keySet().forEach(trigger -> entries.add(new TriggerIndex.Entry(trigger, null, true)));
+		phrasesByText.values().forEach(p -> entries.add(
+				new TriggerIndex.Entry(p.text, p.emoji == null ? null : p.emoji.file, p.soundoji != null)));
+
+		triggerIndex = TriggerIndex.build(entries);
+		autocompleteOverlay.setTriggerIndex(triggerIndex);
+		updatePanel();
+	}
 
-		List<Emoji> loaded = new ArrayList<>();
-		List<Throwable> errors = new ArrayList<>();
+	private void updatePanel()
+	{
+		EmojiPanel panel = this.panel;
+		if (panel != null)
+		{
+			panel.update(triggerIndex, errors);
+		}
+	}
 
-		for (File file : files)
+	private void reportMissingAlias(String alias, String kind, String target)
+	{
+		// compiled again every time something loads, only complain once
+		if (reportedAliases.add(kind + ":" + alias))
 		{
-			Result<Emoji, Throwable> result = loadEmoji(file);
-			result.ifOk(loaded::add);
-			result.ifError(errors::add);
+			log.warn("Alias {} points to missing {} {}", alias, kind, target);
+			errors.add(String.format("Alias <col=00FFFF>%s</col> points to missing %s <col=FF0000>%s", alias, kind, target));
 		}
+	}
 
-		if (errors.isEmpty())
+	/**
+	 * Loads the folder most used first. The first {@code prewarm} files are loaded before returning,
+	 * the long tail is handed to {@code onLoaded} in a second batch from a loader thread.
+	 */
+	private <T> ListenableFuture<?> loadFolder(File folder, int prewarm,
+		Function<File, Result<T, Throwable>> loader, Consumer<Result<List<T>, List<Throwable>>> onLoaded)
+	{
+		// recursively flattenFolder files in the folder
+		List<File> files = new ArrayList<>(scanFolder(folder));
+
+		if (!folder.isDirectory())
 		{
-			return Ok(loaded);
+			onLoaded.accept(Error(List.of(new IllegalArgumentException("Not a folder " + folder))));
+			return Futures.immediateFuture(null);
 		}
-		else
+
+		// stable, so unused files keep their folder order
+		files.sort(Comparator.comparingLong((File file) -> usage.get(fileTrigger(file))).reversed());
+		int split = Math.min(Math.max(prewarm, 0), files.size());
+
+		onLoaded.accept(ResultFutures.await(ResultFutures.traverse(files.subList(0, split), loader, LOADER_THREADS)));
+
+		if (split == files.size())
 		{
-			return PartialOk(loaded, errors);
+			return Futures.immediateFuture(null);
 		}
 
+		log.debug("Loading {} less used files from {} in the background", files.size() - split, folder);
+		return ResultFutures.whenComplete(
+				ResultFutures.traverse(files.subList(split, files.size()), loader, LOADER_THREADS), onLoaded);
+	}
+
+	/**
+	 * @return the trigger a file is loaded as, or its name if it has no extension
+	 */
+	private static String fileTrigger(File file)
+	{
+		int extension = file.getName().lastIndexOf('.');
+		return extension < 0 ? file.getName() : file.getName().substring(0, extension).toLowerCase();
 	}
 
 	private Result<Soundoji, Throwable> loadSoundoji(File file)
@@ -432,34 +1293,128 @@ public class CustomEmojiPlugin extends Plugin
 			return Error(new IllegalArgumentException("Illegal file name " + file));
 		}
 
-		Result<Clip, Throwable> clip = loadClip(file);
+		return loadSoundoji(file, file.getName().substring(0, extension).toLowerCase());
+	}
 
-		if (clip.isOk())
+	private Result<Soundoji, Throwable> loadSoundoji(File file, String text)
+	{
+		Soundoji soundoji = new Soundoji(text, file);
+
+		// wav is raw pcm, so a quarter of the file size is a close enough estimate of the compressed size
+		if (!budget.fits(file.length() / 4))
 		{
-			String text = file.getName().substring(0, extension).toLowerCase();
-			return Ok(new Soundoji(text, clip.unwrap()));
+			// only the header, so a file that can never play still shows up in !emojierror
+			Result<AudioFormat, Throwable> header = checkSound(file);
+			if (header.isError())
+			{
+				return Error(header.unwrapError());
+			}
+
+			log.debug("Memory budget reached, deferring soundoji {} until it is played", text);
+			return Ok(soundoji);
+		}
+
+		EmojiEvents.AssetLoad event = new EmojiEvents.AssetLoad();
+		event.begin();
+		long start = System.nanoTime();
+		Result<ImaAdpcm, Throwable> sound = loadSound(soundoji);
+
+		if (sound.isOk())
+		{
+			ImaAdpcm loaded = sound.unwrap();
+			long decodedBytes = (long) loaded.getFrames() * loaded.getFormat().getFrameSize();
+			stats.recordLoad(file.getName(), System.nanoTime() - start, decodedBytes);
+			commitLoadEvent(event, file, "soundoji", decodedBytes, true);
+			attachSound(soundoji, loaded);
+			return Ok(soundoji);
 		}
 		else
 		{
-			return Error(clip.unwrapError());
+			commitLoadEvent(event, file, "soundoji", 0, false);
+			return Error(sound.unwrapError());
+		}
+	}
+
+	/**
+	 * Decodes the file to 16 bit pcm and compresses it, only the compressed sound is kept.<br>
+	 * The loudness is measured from the same pcm on the way, which sets the soundoji's normalization.
+	 */
+	private static Result<ImaAdpcm, Throwable> loadSound(Soundoji soundoji)
+	{
+		File file = soundoji.file;
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file));
+			AudioInputStream source = AudioSystem.getAudioInputStream(in))
+		{
+			AudioFormat pcm16 = checkFormat(source.getFormat());
+			try (AudioInputStream pcm = AudioSystem.getAudioInputStream(pcm16, source))
+			{
+				byte[] samples = pcm.readAllBytes();
+				Loudness loudness = Loudness.measure(new ByteArrayInputStream(samples));
+				soundoji.normalization = loudness.normalizationGain();
+				log.debug("Soundoji {} peak {} dB, rms {} dB, normalizing by {} dB", soundoji.text,
+						loudness.getPeakDb(), loudness.getRmsDb(), soundoji.normalization);
+				return Ok(ImaAdpcm.encode(pcm16.getSampleRate(), pcm16.getChannels(), samples));
+			}
+		} catch (IllegalArgumentException | IOException | UnsupportedAudioFileException e)
+		{
+			return Error(soundError(file, e));
+		}
+	}
+
+	/**
+	 * Reads only the header, for soundojis that aren't decoded until they are played.
+	 */
+	private static Result<AudioFormat, Throwable> checkSound(File file)
+	{
+		try
+		{
+			return Ok(checkFormat(AudioSystem.getAudioFileFormat(file).getFormat()));
+		} catch (IllegalArgumentException | IOException | UnsupportedAudioFileException e)
+		{
+			return Error(soundError(file, e));
 		}
 	}
 
-	private Result<Clip, Throwable> loadClip(File file)
+	/**
+	 * @return the 16 bit pcm format the sound is decoded to
+	 */
+	private static AudioFormat checkFormat(AudioFormat format)
 	{
-		try (InputStream in = new FileInputStream(file))
+		if (format.getChannels() > 2)
 		{
-			Clip clip = AudioSystem.getClip();
-			clip.open(AudioSystem.getAudioInputStream(new BufferedInputStream(in)));
-			return Ok(clip);
-		} catch (IllegalArgumentException | IOException | LineUnavailableException | UnsupportedAudioFileException e)
+			throw new IllegalArgumentException("only mono and stereo are supported");
+		}
+
+		AudioFormat pcm16 = new AudioFormat(format.getSampleRate(), 16, format.getChannels(), true, false);
+		if (!format.matches(pcm16) && !AudioSystem.isConversionSupported(pcm16, format))
 		{
-			return Error(
-					new RuntimeException("<col=FF0000>" + file.getName() + "</col> failed because <col=FF0000>" + e.getMessage(),
-							e));
+			throw new IllegalArgumentException("unsupported encoding " + format);
 		}
+		return pcm16;
 	}
 
+	private static RuntimeException soundError(File file, Exception e)
+	{
+		return new RuntimeException("<col=FF0000>" + file.getName() + "</col> failed because <col=FF0000>" + e.getMessage(), e);
+	}
+
+
+	private List<File> scanFolder(@NonNull File folder)
+	{
+		EmojiEvents.FolderScan event = new EmojiEvents.FolderScan();
+		event.begin();
+
+		List<File> files = flattenFolder(folder);
+
+		event.end();
+		if (event.shouldCommit())
+		{
+			event.folder = folder.getPath();
+			event.files = files.size();
+			event.commit();
+		}
+		return files;
+	}
 
 	private List<File> flattenFolder(@NonNull File folder)
 	{
@@ -480,7 +1435,8 @@ public class CustomEmojiPlugin extends Plugin
 		// file found
 		if (!folder.isDirectory())
 		{
-			return List.of(folder);
+			// the alias manifest isn't an emoji itself
+			return Aliases.FILE_NAME.equals(folder.getName()) ? List.of() : List.of(folder);
 		}
 
 		// no childs
@@ -508,17 +1464,51 @@ public class CustomEmojiPlugin extends Plugin
 			return Error(new IllegalArgumentException("Illegal file name <col=00FFFF>" + file));
 		}
 
+		return loadEmoji(file, file.getName().substring(0, extension).toLowerCase());
+	}
+
+	private Result<Emoji, Throwable> loadEmoji(File file, String text)
+	{
+		return loadEmoji(file, text, null);
+	}
+
+	/**
+	 * @param previous emoji whose icon is replaced, rather than registering a new one
+	 */
+	private Result<Emoji, Throwable> loadEmoji(File file, String text, @Nullable Emoji previous)
+	{
+		EmojiEvents.AssetLoad event = new EmojiEvents.AssetLoad();
+		event.begin();
+		long start = System.nanoTime();
 		Result<BufferedImage, Throwable> image = loadImage(file);
 
 		if (image.isOk())
 		{
 			try
 			{
-				int id = chatIconManager.registerChatIcon(image.unwrap());
-				String text = file.getName().substring(0, extension).toLowerCase();
+				int id;
+				// files are loaded in parallel, but icons are registered one at a time
+				synchronized (iconLock)
+				{
+					if (previous != null)
+					{
+						id = previous.id;
+						chatIconManager.updateChatIcon(id, image.unwrap());
+					}
+					else
+					{
+						id = chatIconManager.registerChatIcon(image.unwrap());
+					}
+				}
+				long decodedBytes = imageBytes(image.unwrap());
+				stats.recordLoad(file.getName(), System.nanoTime() - start, decodedBytes);
+				commitLoadEvent(event, file, "emoji", decodedBytes, true);
+				// the client keeps its own copy of the icon, so this can't be evicted
+				budget.reserve(MemoryBudget.EMOJI_PREFIX + text, decodedBytes, null);
 				return Ok(new Emoji(id, text, file));
 			} catch (RuntimeException e)
 			{
+				commitLoadEvent(event, file, "emoji", 0, false);
 				return Error(new RuntimeException(
 						"<col=FF0000>" + file.getName() + "</col> failed because <col=FF0000>" + e.getMessage(),
 						e));
@@ -526,6 +1516,7 @@ public class CustomEmojiPlugin extends Plugin
 		}
 		else
 		{
+			commitLoadEvent(event, file, "emoji", 0, false);
 			Throwable throwable = image.unwrapError();
 			return Error(new RuntimeException(
 					"<col=FF0000>" + file.getName() + "</col> failed because <col=FF0000>" + throwable.getMessage(),
@@ -533,25 +1524,42 @@ public class CustomEmojiPlugin extends Plugin
 		}
 	}
 
+	private static void commitLoadEvent(EmojiEvents.AssetLoad event, File file, String kind, long decodedBytes, boolean success)
+	{
+		event.end();
+		if (event.shouldCommit())
+		{
+			event.file = file.getName();
+			event.kind = kind;
+			event.fileBytes = file.length();
+			event.decodedBytes = decodedBytes;
+			event.success = success;
+			event.commit();
+		}
+	}
+
 	private static Result<BufferedImage, Throwable> loadImage(final File file)
 	{
-		try (InputStream in = new FileInputStream(file))
+		try
 		{
-			synchronized (ImageIO.class)
+			BufferedImage read = PngDecoder.read(file);
+			if (read == null)
 			{
-				BufferedImage read = ImageIO.read(in);
-				if (read == null)
-				{
-					return Error(new IOException("image format not supported. (PNG,JPG only)"));
-				}
-				return Ok(read);
+				return Error(new IOException("image format not supported. (PNG,JPG only)"));
 			}
+			return Ok(read);
 		} catch (IllegalArgumentException | IOException e)
 		{
 			return Error(e);
 		}
 	}
 
+	static long imageBytes(BufferedImage image)
+	{
+		DataBuffer buffer = image.getRaster().getDataBuffer();
+		return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+	}
+
 	public static float volumeToGain(int volume100)
 	{
 		// range[NOISE_FLOOR, 0]
@@ -0,0 +1,269 @@
+package com.customemoji;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import javax.inject.Inject;
+import lombok.Setter;
+import lombok.Value;
+import net.runelite.api.Client;
+import net.runelite.api.ScriptID;
+import net.runelite.api.VarClientStr;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.input.KeyListener;
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.ComponentConstants;
+
+/**
+ * Suggests triggers matching the end of the text typed into the chatbox, and completes the top one on
+ * {@link CustomEmojiConfig#autocompleteAcceptKey()}.<br>
+ * Phrases are matched against as many trailing words as the longest phrase has, so {@code good g} suggests
+ * {@code good game}.
+ */
+class EmojiAutocompleteOverlay extends Overlay implements KeyListener
+{
+	private static final int MAX_SUGGESTIONS = 8;
+	private static final int MIN_PREFIX = 2;
+	private static final int ICON_SIZE = 18;
+	private static final int PADDING = 4;
+
+	private static final Color EMOJI_COLOR = Color.WHITE;
+	private static final Color SOUNDOJI_COLOR = Color.CYAN;
+	// the suggestion the accept key completes
+	private static final Color ACCEPT_COLOR = new Color(255, 255, 255, 40);
+
+	private static final Pattern SPACES = Pattern.compile(" +");
+
+	@Value
+	static class Suggestion
+	{
+		TriggerIndex.Entry entry;
+		// where in the typed text the completed words start
+		int start;
+	}
+
+	private final Client client;
+	private final ClientThread clientThread;
+	private final CustomEmojiConfig config;
+	private final EmojiThumbnails thumbnails;
+
+	@Setter
+	private volatile TriggerIndex triggerIndex = TriggerIndex.EMPTY;
+
+	// last query, the typed text only changes on key presses but render runs every frame
+	private String lastTyped;
+	private TriggerIndex lastIndex;
+	private List<Suggestion> suggestions = List.of();
+
+	// read by the key listener on the event dispatch thread
+	private volatile boolean showing;
+	// swallows the typed and released events of a key press that was used to accept
+	private boolean accepting;
+
+	@Inject
+	EmojiAutocompleteOverlay(Client client, ClientThread clientThread, CustomEmojiConfig config,
+		EmojiThumbnails thumbnails)
+	{
+		this.client = client;
+		this.clientThread = clientThread;
+		this.config = config;
+		this.thumbnails = thumbnails;
+		setPosition(OverlayPosition.ABOVE_CHATBOX_RIGHT);
+	}
+
+	@Override
+	public Dimension render(Graphics2D graphics)
+	{
+		showing = false;
+		if (!config.autocomplete())
+		{
+			return null;
+		}
+
+		String typed = client.getVarcStrValue(VarClientStr.CHATBOX_TYPED_TEXT);
+		if (typed == null || !updateSuggestions(typed))
+		{
+			return null;
+		}
+		showing = true;
+
+		FontMetrics metrics = graphics.getFontMetrics();
+		int rowHeight = Math.max(ICON_SIZE, metrics.getHeight()) + 2;
+		int textWidth = 0;
+		for (Suggestion suggestion : suggestions)
+		{
+			textWidth = Math.max(textWidth, metrics.stringWidth(suggestion.entry.getTrigger()));
+		}
+
+		int width = PADDING + ICON_SIZE + PADDING + textWidth + PADDING;
+		int height = PADDING * 2 + rowHeight * suggestions.size();
+
+		graphics.setColor(ComponentConstants.STANDARD_BACKGROUND_COLOR);
+		graphics.fillRect(0, 0, width, height);
+
+		graphics.setColor(ACCEPT_COLOR);
+		graphics.fillRect(0, PADDING, width, rowHeight);
+
+		int y = PADDING;
+		for (Suggestion suggestion : suggestions)
+		{
+			TriggerIndex.Entry entry = suggestion.entry;
+			if (entry.getImage() != null)
+			{
+				BufferedImage icon = thumbnails.get(entry.getImage(), ICON_SIZE);
+				if (icon != null)
+				{
+					graphics.drawImage(icon,
+							PADDING + (ICON_SIZE - icon.getWidth()) / 2,
+							y + (rowHeight - icon.getHeight()) / 2,
+							null);
+				}
+			}
+
+			graphics.setColor(entry.getImage() == null ? SOUNDOJI_COLOR : EMOJI_COLOR);
+			graphics.drawString(entry.getTrigger(),
+					PADDING + ICON_SIZE + PADDING,
+					y + (rowHeight + metrics.getAscent() - metrics.getDescent()) / 2);
+			y += rowHeight;
+		}
+
+		return new Dimension(width, height);
+	}
+
+	/**
+	 * @return whether there is anything to suggest for the typed text
+	 */
+	private boolean updateSuggestions(String typed)
+	{
+		TriggerIndex index = triggerIndex;
+		if (!typed.equals(lastTyped) || index != lastIndex)
+		{
+			lastTyped = typed;
+			lastIndex = index;
+			suggestions = suggest(index, typed);
+		}
+		return !suggestions.isEmpty();
+	}
+
+	@Override
+	public void keyTyped(KeyEvent e)
+	{
+		if (accepting)
+		{
+			e.consume();
+		}
+	}
+
+	@Override
+	public void keyPressed(KeyEvent e)
+	{
+		if (!showing || !config.autocomplete() || !config.autocompleteAcceptKey().matches(e))
+		{
+			return;
+		}
+
+		// the game must not see the key, tab would otherwise start a private message reply
+		e.consume();
+		accepting = true;
+		clientThread.invoke(this::accept);
+	}
+
+	@Override
+	public void keyReleased(KeyEvent e)
+	{
+		if (accepting)
+		{
+			e.consume();
+			accepting = false;
+		}
+	}
+
+	/**
+	 * Replaces the typed words with the top suggestion. Client thread only.
+	 */
+	private void accept()
+	{
+		String typed = client.getVarcStrValue(VarClientStr.CHATBOX_TYPED_TEXT);
+		if (typed == null || !updateSuggestions(typed))
+		{
+			return;
+		}
+
+		client.setVarcStrValue(VarClientStr.CHATBOX_TYPED_TEXT, complete(typed, suggestions.get(0)));
+		// redraws the chatbox input with the new text
+		client.runScript(ScriptID.CHAT_PROMPT_INIT);
+	}
+
+	/**
+	 * @return the typed text with the words the suggestion matched replaced by its trigger
+	 */
+	static String complete(String typed, Suggestion suggestion)
+	{
+		return typed.substring(0, suggestion.start) + suggestion.entry.getTrigger() + " ";
+	}
+
+	/**
+	 * @return suggestions for the end of the typed text. Matches over more trailing words, which can only be
+	 * phrases, come first
+	 */
+	static List<Suggestion> suggest(TriggerIndex index, String typed)
+	{
+		if (typed.isEmpty() || Character.isWhitespace(typed.charAt(typed.length() - 1)))
+		{
+			return List.of();
+		}
+
+		// start of each trailing word, the last word first
+		int[] starts = new int[index.maxWords()];
+		int words = 0;
+		int end = typed.length();
+		while (words < starts.length)
+		{
+			int space = typed.lastIndexOf(' ', end - 1);
+			starts[words++] = space + 1;
+			while (space > 0 && typed.charAt(space - 1) == ' ')
+			{
+				space--;
+			}
+			if (space <= 0)
+			{
+				break;
+			}
+			end = space;
+		}
+
+		List<Suggestion> suggestions = new ArrayList<>();
+		Set<String> seen = new HashSet<>();
+		for (int i = words - 1; i >= 0 && suggestions.size() < MAX_SUGGESTIONS; i--)
+		{
+			String query = typed.substring(starts[i]);
+			if (i > 0)
+			{
+				// triggers are normalized to single spaces
+				query = SPACES.matcher(query).replaceAll(" ");
+			}
+			if (query.length() < MIN_PREFIX)
+			{
+				continue;
+			}
+
+			for (TriggerIndex.Entry entry : index.complete(query, MAX_SUGGESTIONS))
+			{
+				if (suggestions.size() < MAX_SUGGESTIONS && seen.add(entry.getTrigger()))
+				{
+					suggestions.add(new Suggestion(entry, starts[i]));
+				}
+			}
+		}
+		return suggestions;
+	}
+}
@@ -0,0 +1,95 @@
+package com.customemoji;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder events, so the plugin shows up by name in recordings instead of as event bus time.<br>
+ * Events are only populated when {@link Event#shouldCommit()} says so, which is a cheap flag check while
+ * nothing is recording.
+ */
+final class EmojiEvents
+{
+	private static final String CATEGORY = "Custom Emoji";
+
+	private EmojiEvents() {}
+
+	@Name("com.customemoji.FolderScan")
+	@Label("Folder Scan")
+	@Description("Walking an emoji or soundoji folder for files")
+	@Category({"RuneLite", CATEGORY})
+	@StackTrace(false)
+	static class FolderScan extends Event
+	{
+		@Label("Folder")
+		String folder;
+
+		@Label("Files")
+		int files;
+	}
+
+	@Name("com.customemoji.AssetLoad")
+	@Label("Asset Load")
+	@Description("Decoding and registering a single emoji or soundoji")
+	@Category({"RuneLite", CATEGORY})
+	@StackTrace(false)
+	static class AssetLoad extends Event
+	{
+		@Label("File")
+		String file;
+
+		@Label("Kind")
+		String kind;
+
+		@Label("File Size")
+		@DataAmount
+		long fileBytes;
+
+		@Label("Decoded Size")
+		@DataAmount
+		long decodedBytes;
+
+		@Label("Success")
+		boolean success;
+	}
+
+	@Name("com.customemoji.Rewrite")
+	@Label("Message Rewrite")
+	@Description("A chat or overhead message scanned for triggers")
+	@Category({"RuneLite", CATEGORY})
+	@Threshold("50 us")
+	@StackTrace(false)
+	static class Rewrite extends Event
+	{
+		@Label("Length")
+		int length;
+
+		@Label("Words")
+		int words;
+
+		@Label("Triggers")
+		int triggers;
+
+		@Label("Sound")
+		boolean sound;
+	}
+
+	@Name("com.customemoji.SoundojiPlay")
+	@Label("Soundoji Play")
+	@Category({"RuneLite", CATEGORY})
+	@StackTrace(false)
+	static class SoundojiPlay extends Event
+	{
+		@Label("Trigger")
+		String trigger;
+
+		@Label("Dropped")
+		boolean dropped;
+	}
+}
@@ -0,0 +1,295 @@
+package com.customemoji;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import javax.swing.AbstractListModel;
+import javax.swing.BorderFactory;
+import javax.swing.BoxLayout;
+import javax.swing.DefaultListModel;
+import javax.swing.Icon;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.ListCellRenderer;
+import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.PluginPanel;
+import net.runelite.client.ui.components.IconTextField;
+import net.runelite.client.util.Text;
+
+/**
+ * Side panel listing every trigger with a search box and the load errors.<br>
+ * The grid is a {@link JList}, which only paints the cells in view, and thumbnails are generated the first
+ * time a cell is painted, so opening a large library costs no more than a small one.
+ */
+class EmojiPanel extends PluginPanel
+{
+	private static final int THUMBNAIL_SIZE = 32;
+	private static final int CELL_WIDTH = 72;
+	private static final int CELL_HEIGHT = 56;
+	private static final int ERRORS_HEIGHT = 100;
+
+	private static final Color SOUNDOJI_COLOR = Color.CYAN;
+
+	private final EmojiThumbnails thumbnails;
+	private final Consumer<String> preview;
+
+	private final IconTextField searchBar = new IconTextField();
+	private final JLabel countLabel = new JLabel();
+	private final EntryModel model = new EntryModel();
+	private final JList<TriggerIndex.Entry> grid = new JList<>(model);
+	private final DefaultListModel<String> errorModel = new DefaultListModel<>();
+	private final JScrollPane errorPane;
+
+	private TriggerIndex index = TriggerIndex.EMPTY;
+
+	/**
+	 * @param preview plays the soundoji of a clicked trigger
+	 */
+	EmojiPanel(EmojiThumbnails thumbnails, Consumer<String> preview)
+	{
+		super(false);
+		this.thumbnails = thumbnails;
+		this.preview = preview;
+
+		setLayout(new BorderLayout(0, 6));
+		setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+		setBackground(ColorScheme.DARK_GRAY_COLOR);
+
+		searchBar.setIcon(IconTextField.Icon.SEARCH);
+		searchBar.setPreferredSize(new Dimension(PluginPanel.PANEL_WIDTH - 20, 30));
+		searchBar.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+		searchBar.setHoverBackgroundColor(ColorScheme.DARK_GRAY_HOVER_COLOR);
+		searchBar.getDocument().addDocumentListener(new DocumentListener()
+		{
+			@Override
+			public void insertUpdate(DocumentEvent e)
+			{
+				filter();
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent e)
+			{
+				filter();
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent e)
+			{
+				filter();
+			}
+		});
+
+		countLabel.setForeground(Color.LIGHT_GRAY);
+
+		JList<String> errorList = new JList<>(errorModel);
+		errorList.setForeground(Color.RED);
+		errorList.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+		errorPane = new JScrollPane(errorList);
+		errorPane.setPreferredSize(new Dimension(PluginPanel.PANEL_WIDTH - 20, ERRORS_HEIGHT));
+		errorPane.setVisible(false);
+
+		JPanel header = new JPanel();
+		header.setLayout(new BoxLayout(header, BoxLayout.Y_AXIS));
+		header.setBackground(ColorScheme.DARK_GRAY_COLOR);
+		searchBar.setAlignmentX(Component.LEFT_ALIGNMENT);
+		countLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+		errorPane.setAlignmentX(Component.LEFT_ALIGNMENT);
+		header.add(searchBar);
+		header.add(countLabel);
+		header.add(errorPane);
+
+		grid.setLayoutOrientation(JList.HORIZONTAL_WRAP);
+		grid.setVisibleRowCount(-1);
+		// fixed cells, so the list never measures every entry
+		grid.setFixedCellWidth(CELL_WIDTH);
+		grid.setFixedCellHeight(CELL_HEIGHT);
+		grid.setBackground(ColorScheme.DARK_GRAY_COLOR);
+		grid.setCellRenderer(new EntryRenderer());
+		grid.addMouseListener(new MouseAdapter()
+		{
+			@Override
+			public void mouseClicked(MouseEvent e)
+			{
+				int i = grid.locationToIndex(e.getPoint());
+				if (i < 0 || !grid.getCellBounds(i, i).contains(e.getPoint()))
+				{
+					return;
+				}
+
+				TriggerIndex.Entry entry = model.getElementAt(i);
+				if (entry.isSound())
+				{
+					preview.accept(entry.getTrigger());
+				}
+			}
+		});
+
+		JScrollPane gridPane = new JScrollPane(grid);
+		gridPane.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+		gridPane.getVerticalScrollBar().setUnitIncrement(CELL_HEIGHT / 2);
+
+		add(header, BorderLayout.NORTH);
+		add(gridPane, BorderLayout.CENTER);
+		filter();
+	}
+
+	/**
+	 * Safe to call from any thread.
+	 */
+	void update(TriggerIndex index, List<String> errors)
+	{
+		List<String> plainErrors = new ArrayList<>(errors.size());
+		errors.forEach(error -> plainErrors.add(Text.removeTags(error)));
+
+		SwingUtilities.invokeLater(() ->
+		{
+			this.index = index;
+			errorModel.clear();
+			plainErrors.forEach(errorModel::addElement);
+			errorPane.setVisible(!plainErrors.isEmpty());
+			filter();
+			revalidate();
+		});
+	}
+
+	private void filter()
+	{
+		String query = searchBar.getText().trim().toLowerCase();
+		List<TriggerIndex.Entry> all = index.entries();
+		List<TriggerIndex.Entry> matches;
+		if (query.isEmpty())
+		{
+			matches = all;
+		}
+		else
+		{
+			matches = new ArrayList<>();
+			for (TriggerIndex.Entry entry : all)
+			{
+				if (entry.getTrigger().contains(query))
+				{
+					matches.add(entry);
+				}
+			}
+		}
+
+		model.setEntries(matches);
+		String count = matches.size() == all.size()
+				? all.size() + " emojis and soundojis"
+				: matches.size() + " of " + all.size();
+		int errors = errorModel.getSize();
+		countLabel.setText(errors == 0 ? count : count + ", " + errors + " errors");
+	}
+
+	private static class EntryModel extends AbstractListModel<TriggerIndex.Entry>
+	{
+		private List<TriggerIndex.Entry> entries = List.of();
+
+		void setEntries(List<TriggerIndex.Entry> entries)
+		{
+			int previous = this.entries.size();
+			this.entries = entries;
+			if (previous > 0)
+			{
+				fireIntervalRemoved(this, 0, previous - 1);
+			}
+			if (!entries.isEmpty())
+			{
+				fireIntervalAdded(this, 0, entries.size() - 1);
+			}
+		}
+
+		@Override
+		public int getSize()
+		{
+			return entries.size();
+		}
+
+		@Override
+		public TriggerIndex.Entry getElementAt(int index)
+		{
+			return entries.get(index);
+		}
+	}
+
+	private class EntryRenderer implements ListCellRenderer<TriggerIndex.Entry>
+	{
+		private final JLabel label = new JLabel();
+		private final ThumbnailIcon icon = new ThumbnailIcon();
+
+		EntryRenderer()
+		{
+			label.setOpaque(true);
+			label.setHorizontalAlignment(SwingConstants.CENTER);
+			label.setHorizontalTextPosition(SwingConstants.CENTER);
+			label.setVerticalTextPosition(SwingConstants.BOTTOM);
+			label.setIcon(icon);
+		}
+
+		@Override
+		public Component getListCellRendererComponent(JList<? extends TriggerIndex.Entry> list,
+			TriggerIndex.Entry entry, int index, boolean selected, boolean focused)
+		{
+			File file = entry.getImage();
+			icon.image = file == null
+					? null
+					: thumbnails.get(file, THUMBNAIL_SIZE, () -> SwingUtilities.invokeLater(grid::repaint));
+
+			label.setText(entry.getTrigger());
+			label.setForeground(entry.isSound() ? SOUNDOJI_COLOR : Color.WHITE);
+			label.setBackground(selected ? ColorScheme.DARK_GRAY_HOVER_COLOR : ColorScheme.DARK_GRAY_COLOR);
+			label.setToolTipText(entry.isSound() ? entry.getTrigger() + " (click to play)" : entry.getTrigger());
+			return label;
+		}
+	}
+
+	/**
+	 * Paints whatever thumbnail the renderer last set, without an {@link javax.swing.ImageIcon} per cell.
+	 */
+	private static class ThumbnailIcon implements Icon
+	{
+		@Nullable
+		private BufferedImage image;
+
+		@Override
+		public void paintIcon(Component c, Graphics g, int x, int y)
+		{
+			if (image != null)
+			{
+				g.drawImage(image,
+						x + (THUMBNAIL_SIZE - image.getWidth()) / 2,
+						y + (THUMBNAIL_SIZE - image.getHeight()) / 2, null);
+			}
+		}
+
+		@Override
+		public int getIconWidth()
+		{
+			return THUMBNAIL_SIZE;
+		}
+
+		@Override
+		public int getIconHeight()
+		{
+			return THUMBNAIL_SIZE;
+		}
+	}
+}
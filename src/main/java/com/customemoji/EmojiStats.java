@@ -0,0 +1,194 @@
+package com.customemoji;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javax.inject.Singleton;
+import lombok.Getter;
+
+/**
+ * Cheap runtime counters for the plugin. Everything is a {@link LongAdder} so recording from the client thread
+ * never contends with the loader threads or whoever is reading the numbers.
+ */
+@Singleton
+class EmojiStats
+{
+	private static final int TOP = 5;
+
+	@Getter
+	private final LongAdder messagesScanned = new LongAdder();
+	@Getter
+	private final LongAdder messagesRewritten = new LongAdder();
+	@Getter
+	private final LongAdder soundsPlayed = new LongAdder();
+	@Getter
+	private final LongAdder soundsDropped = new LongAdder();
+	@Getter
+	private final LongAdder filesLoaded = new LongAdder();
+	@Getter
+	private final LongAdder decodeBytes = new LongAdder();
+
+	@Getter
+	private final Histogram rewriteNanos = new Histogram();
+	@Getter
+	private final Histogram loadNanos = new Histogram();
+
+	private final Map<String, LongAdder> hits = new ConcurrentHashMap<>();
+	private final Map<String, Long> fileLoadNanos = new ConcurrentHashMap<>();
+
+	void recordRewrite(long nanos, boolean rewritten)
+	{
+		messagesScanned.increment();
+		rewriteNanos.record(nanos);
+		if (rewritten)
+		{
+			messagesRewritten.increment();
+		}
+	}
+
+	void recordHit(String trigger)
+	{
+		hits.computeIfAbsent(trigger, k -> new LongAdder()).increment();
+	}
+
+	void recordLoad(String file, long nanos, long decodedBytes)
+	{
+		filesLoaded.increment();
+		decodeBytes.add(decodedBytes);
+		loadNanos.record(nanos);
+		fileLoadNanos.put(file, nanos);
+	}
+
+	long hits(String trigger)
+	{
+		LongAdder adder = hits.get(trigger);
+		return adder == null ? 0 : adder.sum();
+	}
+
+	Map<String, Long> hitCounts()
+	{
+		return hits.entrySet().stream()
+				.collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().sum()));
+	}
+
+	/**
+	 * @return human readable summary, one line per entry
+	 */
+	List<String> summary()
+	{
+		List<String> lines = new ArrayList<>();
+
+		lines.add(String.format("Scanned %d messages, rewrote %d. Rewrite p50 %s, p99 %s, max %s",
+				messagesScanned.sum(), messagesRewritten.sum(),
+				formatNanos(rewriteNanos.percentile(0.50)),
+				formatNanos(rewriteNanos.percentile(0.99)),
+				formatNanos(rewriteNanos.max())));
+
+		lines.add(String.format("Sounds played %d, dropped %d", soundsPlayed.sum(), soundsDropped.sum()));
+
+		lines.add(String.format("Loaded %d files, decoded %d KiB. Load p50 %s, p99 %s",
+				filesLoaded.sum(), decodeBytes.sum() / 1024,
+				formatNanos(loadNanos.percentile(0.50)),
+				formatNanos(loadNanos.percentile(0.99))));
+
+		String slowest = fileLoadNanos.entrySet().stream()
+				.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+				.limit(TOP)
+				.map(e -> e.getKey() + " " + formatNanos(e.getValue()))
+				.collect(Collectors.joining(", "));
+		if (!slowest.isEmpty())
+		{
+			lines.add("Slowest files: " + slowest);
+		}
+
+		String top = hits.entrySet().stream()
+				.map(e -> Map.entry(e.getKey(), e.getValue().sum()))
+				.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+				.limit(TOP)
+				.map(e -> e.getKey() + " " + e.getValue())
+				.collect(Collectors.joining(", "));
+		if (!top.isEmpty())
+		{
+			lines.add("Top triggers: " + top);
+		}
+
+		return lines;
+	}
+
+	private static String formatNanos(long nanos)
+	{
+		if (nanos < TimeUnit.MILLISECONDS.toNanos(1))
+		{
+			return String.format("%.1fus", nanos / 1e3);
+		}
+		return String.format("%.1fms", nanos / 1e6);
+	}
+
+	/**
+	 * Log2 bucketed histogram. Good enough to tell 2us from 2ms, which is all we need.
+	 */
+	static class Histogram
+	{
+		private final LongAdder[] buckets = new LongAdder[64];
+		private final LongAdder count = new LongAdder();
+		private volatile long max;
+
+		Histogram()
+		{
+			for (int i = 0; i < buckets.length; i++)
+			{
+				buckets[i] = new LongAdder();
+			}
+		}
+
+		void record(long value)
+		{
+			long v = Math.max(0, value);
+			buckets[64 - Long.numberOfLeadingZeros(v) - (v == 0 ? 0 : 1)].increment();
+			count.increment();
+			if (v > max)
+			{
+				// racy, but only ever used for display
+				max = v;
+			}
+		}
+
+		long count()
+		{
+			return count.sum();
+		}
+
+		long max()
+		{
+			return max;
+		}
+
+		/**
+		 * @return upper bound of the bucket the percentile falls in
+		 */
+		long percentile(double percentile)
+		{
+			long total = count.sum();
+			if (total == 0)
+			{
+				return 0;
+			}
+
+			long target = (long) Math.ceil(percentile * total);
+			long seen = 0;
+			for (int i = 0; i < buckets.length; i++)
+			{
+				seen += buckets[i].sum();
+				if (seen >= target)
+				{
+					return i >= 62 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+				}
+			}
+			return max;
+		}
+	}
+}
@@ -0,0 +1,355 @@
+package com.customemoji;
+
+import static com.customemoji.Result.Error;
+import static com.customemoji.Result.Ok;
+import static com.customemoji.Result.PartialOk;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.ByteStreams;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Mirrors a remote emoji repository into a content addressed store.<br>
+ * The manifest is fetched with {@code If-None-Match}, and assets are stored by their sha256, so only new or changed
+ * assets are ever downloaded. Layout of the store:
+ * <pre>
+ * manifest.json         last manifest seen
+ * manifest.etag         its ETag
+ * objects/ab/abcd….png  assets, named by hash
+ * </pre>
+ */
+@Slf4j
+@Singleton
+class EmojiSync
+{
+	static final long MAX_ASSET_BYTES = 8 * 1024 * 1024;
+
+	private static final String MANIFEST = "manifest.json";
+	private static final String MANIFEST_ETAG = "manifest.etag";
+	private static final String OBJECTS = "objects";
+
+	private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+	private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,5}");
+	private static final Pattern WHITESPACE = Pattern.compile("[\\s\\u00A0]");
+
+	/**
+	 * <pre>
+	 * {
+	 *   "emojis":    [{"name": "kekw", "file": "kekw.png", "sha256": "…"}],
+	 *   "soundojis": [{"name": "pipe", "file": "sounds/pipe.wav", "sha256": "…"}]
+	 * }
+	 * </pre>
+	 * {@code file} is resolved relative to the manifest url.
+	 */
+	@Data
+	static class Manifest
+	{
+		private List<Asset> emojis = new ArrayList<>();
+		private List<Asset> soundojis = new ArrayList<>();
+	}
+
+	@Data
+	static class Asset
+	{
+		private String name;
+		private String file;
+		private String sha256;
+	}
+
+	enum Kind
+	{
+		EMOJI,
+		SOUNDOJI,
+	}
+
+	@Value
+	static class SyncedAsset
+	{
+		Kind kind;
+		String name;
+		String sha256;
+		File file;
+	}
+
+	@Value
+	static class SyncResult
+	{
+		List<SyncedAsset> assets;
+		int downloaded;
+	}
+
+	private final OkHttpClient okHttpClient;
+	private final Gson gson;
+
+	@Inject
+	EmojiSync(OkHttpClient okHttpClient, Gson gson)
+	{
+		this.okHttpClient = okHttpClient;
+		this.gson = gson;
+	}
+
+	/**
+	 * Fetches the manifest at {@code manifestUrl} and downloads anything missing from {@code store}.
+	 * If the manifest can't be fetched, the last one seen is used so synced assets still load offline.
+	 */
+	Result<SyncResult, List<Throwable>> sync(@NonNull String manifestUrl, @NonNull File store)
+	{
+		HttpUrl url = HttpUrl.parse(manifestUrl);
+		if (url == null)
+		{
+			return Error(List.of(new IllegalArgumentException("Invalid sync url <col=00FFFF>" + manifestUrl)));
+		}
+
+		List<Throwable> errors = new ArrayList<>();
+
+		Manifest manifest;
+		try
+		{
+			manifest = fetchManifest(url, store);
+		} catch (IOException | JsonParseException e)
+		{
+			errors.add(new RuntimeException("Failed to fetch manifest because <col=FF0000>" + e.getMessage(), e));
+			manifest = cachedManifest(store);
+			if (manifest == null)
+			{
+				return Error(errors);
+			}
+		}
+
+		List<SyncedAsset> assets = new ArrayList<>();
+		int downloaded = 0;
+		for (Kind kind : Kind.values())
+		{
+			List<Asset> list = kind == Kind.EMOJI ? manifest.getEmojis() : manifest.getSoundojis();
+			if (list == null)
+			{
+				continue;
+			}
+
+			for (Asset asset : list)
+			{
+				try
+				{
+					validate(asset);
+					String sha256 = asset.getSha256().toLowerCase(Locale.ROOT);
+					File object = objectFile(store, sha256, asset.getFile());
+					if (!object.isFile())
+					{
+						download(assetUrl(url, asset.getFile()), object, sha256);
+						downloaded++;
+					}
+					assets.add(new SyncedAsset(kind, asset.getName().toLowerCase(), sha256, object));
+				} catch (IOException | IllegalArgumentException e)
+				{
+					errors.add(new RuntimeException(
+							"<col=FF0000>" + asset.getFile() + "</col> failed to sync because <col=FF0000>" + e.getMessage(),
+							e));
+				}
+			}
+		}
+
+		SyncResult result = new SyncResult(assets, downloaded);
+		if (errors.isEmpty())
+		{
+			return Ok(result);
+		}
+		else
+		{
+			return PartialOk(result, errors);
+		}
+	}
+
+	private Manifest fetchManifest(HttpUrl url, File store) throws IOException
+	{
+		File manifestFile = new File(store, MANIFEST);
+		File etagFile = new File(store, MANIFEST_ETAG);
+
+		Request.Builder request = new Request.Builder().url(url);
+		if (manifestFile.isFile() && etagFile.isFile())
+		{
+			request.header("If-None-Match", Files.readString(etagFile.toPath(), StandardCharsets.UTF_8).trim());
+		}
+
+		try (Response response = okHttpClient.newCall(request.build()).execute())
+		{
+			if (response.code() == 304)
+			{
+				Manifest cached = cachedManifest(store);
+				if (cached != null)
+				{
+					log.debug("Manifest {} not modified", url);
+					return cached;
+				}
+			}
+
+			ResponseBody body = response.body();
+			if (!response.isSuccessful() || body == null)
+			{
+				throw new IOException("HTTP " + response.code() + " from " + url);
+			}
+
+			String json = body.string();
+			Manifest manifest = gson.fromJson(json, Manifest.class);
+			if (manifest == null)
+			{
+				throw new JsonParseException("Empty manifest");
+			}
+
+			Files.createDirectories(store.toPath());
+			Files.writeString(manifestFile.toPath(), json, StandardCharsets.UTF_8);
+			String etag = response.header("ETag");
+			if (etag != null)
+			{
+				Files.writeString(etagFile.toPath(), etag, StandardCharsets.UTF_8);
+			}
+			else
+			{
+				Files.deleteIfExists(etagFile.toPath());
+			}
+			return manifest;
+		}
+	}
+
+	@Nullable
+	private Manifest cachedManifest(File store)
+	{
+		File manifestFile = new File(store, MANIFEST);
+		if (!manifestFile.isFile())
+		{
+			return null;
+		}
+
+		try
+		{
+			return gson.fromJson(Files.readString(manifestFile.toPath(), StandardCharsets.UTF_8), Manifest.class);
+		} catch (IOException | JsonParseException e)
+		{
+			log.warn("Failed to read cached manifest {}", manifestFile, e);
+			return null;
+		}
+	}
+
+	private void download(HttpUrl url, File object, String sha256) throws IOException
+	{
+		File folder = object.getParentFile();
+		Files.createDirectories(folder.toPath());
+		File temp = File.createTempFile(sha256, ".part", folder);
+
+		try (Response response = okHttpClient.newCall(new Request.Builder().url(url).build()).execute())
+		{
+			ResponseBody body = response.body();
+			if (!response.isSuccessful() || body == null)
+			{
+				throw new IOException("HTTP " + response.code());
+			}
+
+			String actual;
+			try (HashingInputStream in = new HashingInputStream(Hashing.sha256(), body.byteStream());
+				OutputStream out = Files.newOutputStream(temp.toPath()))
+			{
+				long copied = ByteStreams.copy(ByteStreams.limit(in, MAX_ASSET_BYTES + 1), out);
+				if (copied > MAX_ASSET_BYTES)
+				{
+					throw new IOException("larger than " + MAX_ASSET_BYTES / 1024 + " KiB");
+				}
+				actual = in.hash().toString();
+			}
+
+			if (!actual.equals(sha256))
+			{
+				throw new IOException("hash mismatch, expected " + sha256 + " got " + actual);
+			}
+
+			try
+			{
+				Files.move(temp.toPath(), object.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(temp.toPath(), object.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			log.debug("Downloaded {} to {}", url, object);
+		} finally
+		{
+			Files.deleteIfExists(temp.toPath());
+		}
+	}
+
+	/**
+	 * Resolves an asset against the manifest. Only assets on the manifest's own scheme, host and port are allowed,
+	 * so a manifest can't send the client anywhere else.
+	 */
+	static HttpUrl assetUrl(HttpUrl manifestUrl, String file)
+	{
+		HttpUrl url = manifestUrl.resolve(file);
+		if (url == null)
+		{
+			throw new IllegalArgumentException("invalid asset url");
+		}
+		if (!url.scheme().equals(manifestUrl.scheme()) || !url.host().equals(manifestUrl.host())
+				|| url.port() != manifestUrl.port())
+		{
+			throw new IllegalArgumentException("asset is not on the manifest's host <col=00FFFF>" + url);
+		}
+		return url;
+	}
+
+	static File objectFile(File store, String sha256, String fileName)
+	{
+		String extension = "";
+		int dot = fileName.lastIndexOf('.');
+		if (dot >= 0)
+		{
+			String ext = fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+			if (EXTENSION.matcher(ext).matches())
+			{
+				extension = "." + ext;
+			}
+		}
+
+		return store.toPath()
+				.resolve(OBJECTS)
+				.resolve(sha256.substring(0, 2))
+				.resolve(sha256 + extension)
+				.toFile();
+	}
+
+	private static void validate(Asset asset)
+	{
+		if (asset.getName() == null || asset.getName().isEmpty() || WHITESPACE.matcher(asset.getName()).find())
+		{
+			throw new IllegalArgumentException("invalid name " + asset.getName());
+		}
+		if (asset.getFile() == null || asset.getFile().isEmpty())
+		{
+			throw new IllegalArgumentException("missing file for " + asset.getName());
+		}
+		if (asset.getSha256() == null || !SHA256.matcher(asset.getSha256().toLowerCase(Locale.ROOT)).matches())
+		{
+			throw new IllegalArgumentException("invalid sha256 for " + asset.getName());
+		}
+	}
+}
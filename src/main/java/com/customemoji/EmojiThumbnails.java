@@ -0,0 +1,211 @@
+package com.customemoji;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nullable;
+import javax.inject.Singleton;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.util.ImageUtil;
+
+/**
+ * Small previews of emoji images, decoded on a worker thread of their own.<br>
+ * The client only keeps the icon it was registered with, so previews are read back from the file. Requests are
+ * served most recent first and only the latest {@link #MAX_PENDING} are kept, so scrolling through a large
+ * library decodes what is in view rather than everything scrolled past. Previews are kept in least recently used
+ * order up to {@link #MAX_BYTES}. They are capped here rather than in the {@link MemoryBudget}, where being the most
+ * recently used entry would let them evict cold soundojis.
+ */
+@Slf4j
+@Singleton
+class EmojiThumbnails
+{
+	static final int MAX_PENDING = 64;
+	// a thousand or so 32px previews
+	static final long MAX_BYTES = 4 * 1024 * 1024;
+
+	private static final BufferedImage MISSING = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
+	@Value
+	private static class Key
+	{
+		File file;
+		int size;
+	}
+
+	private final ExecutorService worker = Executors.newSingleThreadExecutor(
+			new ThreadFactoryBuilder().setNameFormat("custom-emoji-thumbnails").setDaemon(true).build());
+
+	// everything below is guarded by this
+	// access ordered, so iteration starts at the coldest preview
+	private final LinkedHashMap<Key, BufferedImage> thumbnails = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes;
+	// most recent request first
+	private final Deque<Key> pending = new ArrayDeque<>();
+	private final Map<Key, Runnable> callbacks = new HashMap<>();
+	@Nullable
+	private Key loading;
+	private boolean draining;
+
+	/**
+	 * @return the thumbnail, or null if it's still being generated
+	 */
+	@Nullable
+	BufferedImage get(File file, int size)
+	{
+		return get(file, size, null);
+	}
+
+	/**
+	 * @param generated run from the worker thread once a missing thumbnail has been generated
+	 * @return the thumbnail, or null if it's still being generated
+	 */
+	@Nullable
+	synchronized BufferedImage get(File file, int size, @Nullable Runnable generated)
+	{
+		Key key = new Key(file, size);
+		BufferedImage thumbnail = thumbnails.get(key);
+		if (thumbnail != null)
+		{
+			return thumbnail == MISSING ? null : thumbnail;
+		}
+
+		if (!key.equals(loading))
+		{
+			request(key, generated);
+		}
+		return null;
+	}
+
+	private void request(Key key, @Nullable Runnable generated)
+	{
+		// asked again, move it to the front
+		pending.remove(key);
+		pending.addFirst(key);
+		if (generated != null)
+		{
+			callbacks.put(key, generated);
+		}
+
+		// the oldest requests are for whatever has been scrolled out of view since
+		while (pending.size() > MAX_PENDING)
+		{
+			callbacks.remove(pending.removeLast());
+		}
+
+		if (!draining)
+		{
+			draining = true;
+			worker.execute(this::drain);
+		}
+	}
+
+	private void drain()
+	{
+		try
+		{
+			while (true)
+			{
+				Key key;
+				Runnable generated;
+				synchronized (this)
+				{
+					key = pending.pollFirst();
+					if (key == null)
+					{
+						return;
+					}
+					generated = callbacks.remove(key);
+					loading = key;
+				}
+
+				store(key, load(key.file, key.size));
+				if (generated != null)
+				{
+					generated.run();
+				}
+			}
+		} finally
+		{
+			// also when a decode or callback throws, so the next request starts the worker again
+			synchronized (this)
+			{
+				loading = null;
+				draining = false;
+			}
+		}
+	}
+
+	private synchronized void store(Key key, BufferedImage thumbnail)
+	{
+		loading = null;
+		BufferedImage previous = thumbnails.put(key, thumbnail);
+		bytes += size(thumbnail) - (previous == null ? 0 : size(previous));
+
+		Iterator<BufferedImage> coldest = thumbnails.values().iterator();
+		while (bytes > MAX_BYTES && coldest.hasNext())
+		{
+			BufferedImage evicted = coldest.next();
+			if (evicted != thumbnail)
+			{
+				bytes -= size(evicted);
+				coldest.remove();
+			}
+		}
+	}
+
+	synchronized void clear()
+	{
+		thumbnails.clear();
+		bytes = 0;
+		pending.clear();
+		callbacks.clear();
+	}
+
+	/**
+	 * @return bytes held by previews
+	 */
+	synchronized long getBytes()
+	{
+		return bytes;
+	}
+
+	private static long size(BufferedImage thumbnail)
+	{
+		return thumbnail == MISSING ? 0 : CustomEmojiPlugin.imageBytes(thumbnail);
+	}
+
+	private static BufferedImage load(File file, int size)
+	{
+		try
+		{
+			BufferedImage image = PngDecoder.read(file);
+			if (image == null)
+			{
+				return MISSING;
+			}
+
+			double scale = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+			if (scale >= 1.0)
+			{
+				return image;
+			}
+			return ImageUtil.resizeImage(image,
+					Math.max(1, (int) (image.getWidth() * scale)),
+					Math.max(1, (int) (image.getHeight() * scale)));
+		} catch (Exception e)
+		{
+			log.debug("Failed to generate thumbnail for {}", file, e);
+			return MISSING;
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package com.customemoji;
+
+import javax.sound.sampled.AudioFormat;
+import lombok.Getter;
+
+/**
+ * A sound compressed with IMA ADPCM, 4 bits per sample, about a quarter of the 16 bit pcm.<br>
+ * Stored as independent blocks so it can be decoded from the start into a buffer of
+ * {@link #decodedBlockBytes(int)}. A block is, per channel, the 16 bit little endian predictor and the
+ * step index, followed by {@link #BLOCK_FRAMES} frames of nibbles interleaved by channel, low nibble first.
+ */
+class ImaAdpcm
+{
+	static final int BLOCK_FRAMES = 1024;
+
+	private static final int HEADER_BYTES = 3;
+
+	private static final int[] INDEX_TABLE = {
+			-1, -1, -1, -1, 2, 4, 6, 8,
+	};
+
+	private static final int[] STEP_TABLE = {
+			7, 8, 9, 10, 11, 12, 13, 14, 16, 17,
+			19, 21, 23, 25, 28, 31, 34, 37, 41, 45,
+			50, 55, 60, 66, 73, 80, 88, 97, 107, 118,
+			130, 143, 157, 173, 190, 209, 230, 253, 279, 307,
+			337, 371, 408, 449, 494, 544, 598, 658, 724, 796,
+			876, 963, 1060, 1166, 1282, 1411, 1552, 1707, 1878, 2066,
+			2272, 2499, 2749, 3024, 3327, 3660, 4026, 4428, 4871, 5358,
+			5894, 6484, 7132, 7845, 8630, 9493, 10442, 11487, 12635, 13899,
+			15289, 16818, 18500, 20350, 22385, 24623, 27086, 29794, 32767,
+	};
+
+	/**
+	 * 16 bit signed little endian, what {@link #decodeBlock} produces
+	 */
+	@Getter
+	private final AudioFormat format;
+	@Getter
+	private final int frames;
+	private final byte[] data;
+
+	private ImaAdpcm(AudioFormat format, int frames, byte[] data)
+	{
+		this.format = format;
+		this.frames = frames;
+		this.data = data;
+	}
+
+	/**
+	 * @param pcm 16 bit signed little endian, interleaved by channel
+	 */
+	static ImaAdpcm encode(float sampleRate, int channels, byte[] pcm)
+	{
+		if (channels < 1)
+		{
+			throw new IllegalArgumentException("Unsupported channel count " + channels);
+		}
+
+		int frames = pcm.length / 2 / channels;
+		int blocks = (frames + BLOCK_FRAMES - 1) / BLOCK_FRAMES;
+		int lastFrames = frames - (blocks - 1) * BLOCK_FRAMES;
+		byte[] data = new byte[blocks == 0
+				? 0
+				: (blocks - 1) * blockBytes(channels, BLOCK_FRAMES) + blockBytes(channels, lastFrames)];
+
+		int[] predictor = new int[channels];
+		int[] index = new int[channels];
+		// start from the first sample and a step that fits the first difference, instead of ramping up from silence
+		for (int channel = 0; channel < channels && frames > 1; channel++)
+		{
+			predictor[channel] = sample(pcm, channel);
+			int diff = Math.abs(sample(pcm, channels + channel) - predictor[channel]);
+			while (index[channel] < STEP_TABLE.length - 1 && STEP_TABLE[index[channel]] < diff)
+			{
+				index[channel]++;
+			}
+		}
+
+		int offset = 0;
+		for (int block = 0; block < blocks; block++)
+		{
+			int blockFrames = block == blocks - 1 ? lastFrames : BLOCK_FRAMES;
+
+			// the state the decoder starts this block from
+			for (int channel = 0; channel < channels; channel++)
+			{
+				data[offset++] = (byte) predictor[channel];
+				data[offset++] = (byte) (predictor[channel] >> 8);
+				data[offset++] = (byte) index[channel];
+			}
+
+			int firstSample = block * BLOCK_FRAMES * channels;
+			int samples = blockFrames * channels;
+			for (int i = 0; i < samples; i++)
+			{
+				int channel = i % channels;
+				int sample = sample(pcm, firstSample + i);
+
+				int nibble = encodeNibble(sample - predictor[channel], STEP_TABLE[index[channel]]);
+				predictor[channel] = nextPredictor(predictor[channel], index[channel], nibble);
+				index[channel] = nextIndex(index[channel], nibble);
+
+				data[offset + (i >> 1)] |= (i & 1) == 0 ? nibble : nibble << 4;
+			}
+			offset += (samples + 1) / 2;
+		}
+
+		return new ImaAdpcm(new AudioFormat(sampleRate, 16, channels, true, false), frames, data);
+	}
+
+	int blocks()
+	{
+		return (frames + BLOCK_FRAMES - 1) / BLOCK_FRAMES;
+	}
+
+	/**
+	 * @return pcm bytes written to {@code out}
+	 */
+	int decodeBlock(int block, byte[] out)
+	{
+		int channels = format.getChannels();
+		int blockFrames = Math.min(BLOCK_FRAMES, frames - block * BLOCK_FRAMES);
+		int offset = block * blockBytes(channels, BLOCK_FRAMES);
+
+		int[] predictor = new int[channels];
+		int[] index = new int[channels];
+		for (int channel = 0; channel < channels; channel++)
+		{
+			predictor[channel] = (short) ((data[offset + 1] << 8) | (data[offset] & 0xFF));
+			index[channel] = data[offset + 2];
+			offset += HEADER_BYTES;
+		}
+
+		int samples = blockFrames * channels;
+		for (int i = 0; i < samples; i++)
+		{
+			int channel = i % channels;
+			int packed = data[offset + (i >> 1)];
+			int nibble = ((i & 1) == 0 ? packed : packed >> 4) & 0xF;
+
+			int sample = nextPredictor(predictor[channel], index[channel], nibble);
+			predictor[channel] = sample;
+			index[channel] = nextIndex(index[channel], nibble);
+
+			out[i * 2] = (byte) sample;
+			out[i * 2 + 1] = (byte) (sample >> 8);
+		}
+		return samples * 2;
+	}
+
+	/**
+	 * @return heap held by the compressed data
+	 */
+	long memoryBytes()
+	{
+		return data.length;
+	}
+
+	static int decodedBlockBytes(int channels)
+	{
+		return BLOCK_FRAMES * channels * 2;
+	}
+
+	private static int blockBytes(int channels, int blockFrames)
+	{
+		return channels * HEADER_BYTES + (blockFrames * channels + 1) / 2;
+	}
+
+	private static int sample(byte[] pcm, int i)
+	{
+		return (short) ((pcm[i * 2 + 1] << 8) | (pcm[i * 2] & 0xFF));
+	}
+
+	private static int encodeNibble(int diff, int step)
+	{
+		int nibble = 0;
+		if (diff < 0)
+		{
+			nibble = 8;
+			diff = -diff;
+		}
+		if (diff >= step)
+		{
+			nibble |= 4;
+			diff -= step;
+		}
+		if (diff >= step >> 1)
+		{
+			nibble |= 2;
+			diff -= step >> 1;
+		}
+		if (diff >= step >> 2)
+		{
+			nibble |= 1;
+		}
+		return nibble;
+	}
+
+	private static int nextPredictor(int predictor, int index, int nibble)
+	{
+		int step = STEP_TABLE[index];
+		int delta = step >> 3;
+		if ((nibble & 4) != 0)
+		{
+			delta += step;
+		}
+		if ((nibble & 2) != 0)
+		{
+			delta += step >> 1;
+		}
+		if ((nibble & 1) != 0)
+		{
+			delta += step >> 2;
+		}
+		predictor += (nibble & 8) != 0 ? -delta : delta;
+		return Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, predictor));
+	}
+
+	private static int nextIndex(int index, int nibble)
+	{
+		return Math.max(0, Math.min(STEP_TABLE.length - 1, index + INDEX_TABLE[nibble & 7]));
+	}
+}
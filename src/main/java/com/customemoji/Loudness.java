@@ -0,0 +1,85 @@
+package com.customemoji;
+
+import java.io.IOException;
+import java.io.InputStream;
+import lombok.Value;
+
+/**
+ * Peak and RMS level of a sound, in dB relative to full scale. Measured from the pcm the sound is decoded to
+ * when it loads, so the file is never decoded just for this.
+ */
+@Value
+class Loudness
+{
+	// roughly where most game sound effects sit
+	static final float TARGET_RMS_DB = -20f;
+	// never push peaks closer than this to clipping
+	static final float PEAK_CEILING_DB = -1f;
+	static final float MAX_BOOST_DB = 12f;
+	static final float MAX_CUT_DB = -24f;
+
+	float peakDb;
+	float rmsDb;
+
+	/**
+	 * @return gain in dB that brings this sound to {@link #TARGET_RMS_DB} without clipping
+	 */
+	float normalizationGain()
+	{
+		if (Float.isInfinite(rmsDb) || Float.isNaN(rmsDb))
+		{
+			// silence, nothing to normalize
+			return 0f;
+		}
+
+		float gain = TARGET_RMS_DB - rmsDb;
+		gain = Math.min(gain, PEAK_CEILING_DB - peakDb);
+		return Math.max(MAX_CUT_DB, Math.min(MAX_BOOST_DB, gain));
+	}
+
+	/**
+	 * @param pcm 16 bit signed little endian
+	 */
+	static Loudness measure(InputStream pcm) throws IOException
+	{
+		byte[] buffer = new byte[8192];
+		long samples = 0;
+		double sumSquares = 0;
+		int peak = 0;
+
+		int carry = 0;
+		int read;
+		while ((read = pcm.read(buffer, carry, buffer.length - carry)) > 0)
+		{
+			int length = carry + read;
+			int even = length & ~1;
+			for (int i = 0; i < even; i += 2)
+			{
+				int sample = (short) ((buffer[i + 1] << 8) | (buffer[i] & 0xFF));
+				sumSquares += (double) sample * sample;
+				peak = Math.max(peak, Math.abs(sample));
+			}
+			samples += even / 2;
+
+			// odd read, keep the half sample for the next round
+			carry = length - even;
+			if (carry > 0)
+			{
+				buffer[0] = buffer[even];
+			}
+		}
+
+		if (samples == 0)
+		{
+			return new Loudness(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+		}
+
+		double rms = Math.sqrt(sumSquares / samples);
+		return new Loudness(toDb(peak), toDb(rms));
+	}
+
+	private static float toDb(double amplitude)
+	{
+		return (float) (20 * Math.log10(amplitude / 32768.0));
+	}
+}
@@ -0,0 +1,173 @@
+package com.customemoji;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import javax.inject.Singleton;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Accounts for the heap held by decoded emojis and soundojis.<br>
+ * Assets registered with an evictor are kept in least recently used order and evicted once the ceiling is
+ * reached. Assets without one (emojis, which live in the client's icon sheet once registered) are only counted.
+ */
+@Slf4j
+@Singleton
+class MemoryBudget
+{
+	private static final int TOP = 5;
+	static final String EMOJI_PREFIX = "emoji:";
+	static final String SOUNDOJI_PREFIX = "soundoji:";
+
+	@Value
+	static class Usage
+	{
+		String key;
+		long bytes;
+		boolean evictable;
+	}
+
+	@Value
+	private static class Entry
+	{
+		long bytes;
+		@Nullable
+		BooleanSupplier evictor;
+	}
+
+	// access ordered, so iteration starts at the coldest asset
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long used;
+	private long ceiling = Long.MAX_VALUE;
+
+	synchronized void setCeiling(long ceiling)
+	{
+		this.ceiling = ceiling <= 0 ? Long.MAX_VALUE : ceiling;
+		trim(null);
+	}
+
+	synchronized long getCeiling()
+	{
+		return ceiling;
+	}
+
+	synchronized long getUsed()
+	{
+		return used;
+	}
+
+	/**
+	 * @return true if {@code bytes} more can be held without evicting anything
+	 */
+	synchronized boolean fits(long bytes)
+	{
+		return used + bytes <= ceiling;
+	}
+
+	/**
+	 * Accounts {@code bytes} to {@code key}, evicting cold assets if that puts usage over the ceiling.
+	 *
+	 * @param evictor releases the asset and returns true, or returns false if it can't be released right now.
+	 *                Null for assets that can't be evicted.
+	 */
+	synchronized void reserve(String key, long bytes, @Nullable BooleanSupplier evictor)
+	{
+		release(key);
+		entries.put(key, new Entry(bytes, evictor));
+		used += bytes;
+		trim(key);
+	}
+
+	synchronized void release(String key)
+	{
+		Entry entry = entries.remove(key);
+		if (entry != null)
+		{
+			used -= entry.bytes;
+		}
+	}
+
+	/**
+	 * Marks {@code key} as recently used.
+	 */
+	synchronized void touch(String key)
+	{
+		entries.get(key);
+	}
+
+	synchronized List<Usage> largest(int n)
+	{
+		return entries.entrySet().stream()
+				.map(e -> new Usage(e.getKey(), e.getValue().bytes, e.getValue().evictor != null))
+				.sorted(Comparator.comparingLong(Usage::getBytes).reversed())
+				.limit(n)
+				.collect(Collectors.toList());
+	}
+
+	synchronized List<String> summary()
+	{
+		long emojis = 0;
+		long soundojis = 0;
+		long other = 0;
+		for (Map.Entry<String, Entry> entry : entries.entrySet())
+		{
+			String key = entry.getKey();
+			long bytes = entry.getValue().bytes;
+			if (key.startsWith(EMOJI_PREFIX))
+			{
+				emojis += bytes;
+			}
+			else if (key.startsWith(SOUNDOJI_PREFIX))
+			{
+				soundojis += bytes;
+			}
+			else
+			{
+				other += bytes;
+			}
+		}
+
+		List<String> lines = new ArrayList<>();
+		lines.add(String.format("Memory %d KiB of %s (emojis %d KiB, soundojis %d KiB%s)",
+				used / 1024, ceiling == Long.MAX_VALUE ? "unlimited" : ceiling / 1024 + " KiB",
+				emojis / 1024, soundojis / 1024, other == 0 ? "" : String.format(", other %d KiB", other / 1024)));
+
+		String largest = largest(TOP).stream()
+				.map(u -> u.getKey() + " " + u.getBytes() / 1024 + " KiB")
+				.collect(Collectors.joining(", "));
+		if (!largest.isEmpty())
+		{
+			lines.add("Largest assets: " + largest);
+		}
+		return lines;
+	}
+
+	private void trim(@Nullable String keep)
+	{
+		Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+		while (used > ceiling && it.hasNext())
+		{
+			Map.Entry<String, Entry> next = it.next();
+			Entry entry = next.getValue();
+			if (entry.evictor == null || next.getKey().equals(keep))
+			{
+				continue;
+			}
+
+			if (entry.evictor.getAsBoolean())
+			{
+				log.debug("Evicted {} ({} bytes)", next.getKey(), entry.bytes);
+				it.remove();
+				used -= entry.bytes;
+			}
+		}
+	}
+}
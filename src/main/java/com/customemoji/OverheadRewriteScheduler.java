@@ -0,0 +1,120 @@
+package com.customemoji;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import javax.inject.Singleton;
+import lombok.Getter;
+import net.runelite.api.Actor;
+
+/**
+ * Spreads overhead text rewrites over several client ticks.<br>
+ * Each tick gets a time budget. Rewrites past the budget are queued, one per actor, and run on later ticks.
+ * A queued rewrite is dropped if the actor's text has changed since. Client thread only.
+ */
+@Singleton
+class OverheadRewriteScheduler
+{
+	// sanity guard, a full queue means we can't keep up anyway
+	private static final int MAX_PENDING = 1024;
+
+	// insertion ordered, so the oldest rewrite runs first
+	private final Map<Actor, String> pending = new LinkedHashMap<>();
+
+	private long budgetNanos;
+	private long spentNanos;
+
+	@Getter
+	private long deferred;
+	@Getter
+	private long dropped;
+
+	/**
+	 * @param budgetNanos time allowed per tick, 0 or less for unlimited
+	 */
+	void setBudgetNanos(long budgetNanos)
+	{
+		this.budgetNanos = budgetNanos;
+	}
+
+	boolean hasBudget()
+	{
+		return budgetNanos <= 0 || spentNanos < budgetNanos;
+	}
+
+	void charge(long nanos)
+	{
+		spentNanos += nanos;
+	}
+
+	/**
+	 * Queues a rewrite for a later tick, replacing any rewrite already queued for the actor.
+	 */
+	void defer(Actor actor, String text)
+	{
+		if (pending.remove(actor) != null)
+		{
+			dropped++;
+		}
+
+		if (pending.size() >= MAX_PENDING)
+		{
+			Iterator<Actor> it = pending.keySet().iterator();
+			it.next();
+			it.remove();
+			dropped++;
+		}
+
+		pending.put(actor, text);
+		deferred++;
+	}
+
+	/**
+	 * Forgets any queued rewrite for the actor, because it's being rewritten right now.
+	 */
+	void cancel(Actor actor)
+	{
+		pending.remove(actor);
+	}
+
+	/**
+	 * Starts a new tick, and runs queued rewrites until the budget is spent.
+	 *
+	 * @param rewrite called with the actor and the text it had when the rewrite was queued
+	 */
+	void tick(BiConsumer<Actor, String> rewrite)
+	{
+		spentNanos = 0;
+
+		while (!pending.isEmpty() && hasBudget())
+		{
+			// fresh iterator every time, setting overhead text can post another change event
+			Iterator<Map.Entry<Actor, String>> it = pending.entrySet().iterator();
+			Map.Entry<Actor, String> entry = it.next();
+			it.remove();
+
+			Actor actor = entry.getKey();
+			String text = entry.getValue();
+			if (!text.equals(actor.getOverheadText()))
+			{
+				// text changed again or expired, nothing left to rewrite
+				dropped++;
+				continue;
+			}
+
+			rewrite.accept(actor, text);
+		}
+	}
+
+	int pendingCount()
+	{
+		return pending.size();
+	}
+
+	void clear()
+	{
+		pending.clear();
+		spentNanos = 0;
+	}
+}
@@ -0,0 +1,378 @@
+package com.customemoji;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.annotation.Nullable;
+import javax.imageio.ImageIO;
+
+/**
+ * Decoder for the PNGs emojis almost always are: small, not interlaced, palette or 8 bit truecolour.<br>
+ * Reads straight from the file bytes into an indexed or ARGB raster, without ImageIO's service lookup and
+ * stream layers. Anything else, including broken files, is left to ImageIO so it can report the error.
+ */
+final class PngDecoder
+{
+	// bigger images are rare enough that ImageIO is fine for them
+	static final int MAX_DIMENSION = 256;
+
+	private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+	private static final int COLOR_TRUECOLOR = 2;
+	private static final int COLOR_PALETTE = 3;
+	private static final int COLOR_TRUECOLOR_ALPHA = 6;
+
+	private PngDecoder()
+	{
+	}
+
+	/**
+	 * @return the image, or null if it isn't an image ImageIO can read either
+	 */
+	@Nullable
+	static BufferedImage read(File file) throws IOException
+	{
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		BufferedImage image = decode(bytes);
+		if (image != null)
+		{
+			return image;
+		}
+
+		synchronized (ImageIO.class)
+		{
+			return ImageIO.read(new ByteArrayInputStream(bytes));
+		}
+	}
+
+	/**
+	 * @return the image, or null if it's not a PNG this decoder handles
+	 */
+	@Nullable
+	static BufferedImage decode(byte[] png)
+	{
+		try
+		{
+			return decodeOrNull(png);
+		} catch (DataFormatException | IndexOutOfBoundsException e)
+		{
+			// broken, let ImageIO have a go and explain what's wrong
+			return null;
+		}
+	}
+
+	@Nullable
+	private static BufferedImage decodeOrNull(byte[] png) throws DataFormatException
+	{
+		for (int i = 0; i < SIGNATURE.length; i++)
+		{
+			if (png.length <= i || png[i] != SIGNATURE[i])
+			{
+				return null;
+			}
+		}
+
+		int width = 0;
+		int height = 0;
+		int bitDepth = 0;
+		int colorType = -1;
+		byte[] palette = null;
+		byte[] transparency = null;
+
+		Inflater inflater = new Inflater();
+		try
+		{
+			byte[] raw = null;
+			int rawLength = 0;
+
+			int offset = SIGNATURE.length;
+			while (true)
+			{
+				int length = readInt(png, offset);
+				int type = readInt(png, offset + 4);
+				int data = offset + 8;
+				// written so a length near Integer.MAX_VALUE can't overflow past the check
+				if (length < 0 || length > png.length - data - 4)
+				{
+					return null;
+				}
+
+				switch (type)
+				{
+					case 0x49484452: // IHDR
+						width = readInt(png, data);
+						height = readInt(png, data + 4);
+						bitDepth = png[data + 8];
+						colorType = png[data + 9];
+						int interlace = png[data + 12];
+						if (width <= 0 || height <= 0 || width > MAX_DIMENSION || height > MAX_DIMENSION
+								|| interlace != 0 || !supported(colorType, bitDepth))
+						{
+							return null;
+						}
+						raw = new byte[height * (1 + rowBytes(width, colorType, bitDepth))];
+						break;
+					case 0x504C5445: // PLTE
+						palette = slice(png, data, length);
+						break;
+					case 0x74524E53: // tRNS
+						transparency = slice(png, data, length);
+						break;
+					case 0x49444154: // IDAT
+						if (raw == null)
+						{
+							return null;
+						}
+						inflater.setInput(png, data, length);
+						while (!inflater.needsInput() && !inflater.finished() && rawLength < raw.length)
+						{
+							int inflated = inflater.inflate(raw, rawLength, raw.length - rawLength);
+							if (inflated == 0 && inflater.needsDictionary())
+							{
+								return null;
+							}
+							rawLength += inflated;
+						}
+						break;
+					case 0x49454E44: // IEND
+						if (raw == null || rawLength != raw.length)
+						{
+							return null;
+						}
+						return toImage(raw, width, height, bitDepth, colorType, palette, transparency);
+					default:
+						// unknown critical chunk, ancillary ones like gamma are ignored just like ImageIO does
+						if ((type & 0x20000000) == 0)
+						{
+							return null;
+						}
+				}
+
+				offset = data + length + 4;
+			}
+		} finally
+		{
+			inflater.end();
+		}
+	}
+
+	private static boolean supported(int colorType, int bitDepth)
+	{
+		switch (colorType)
+		{
+			case COLOR_PALETTE:
+				return bitDepth == 1 || bitDepth == 2 || bitDepth == 4 || bitDepth == 8;
+			case COLOR_TRUECOLOR:
+			case COLOR_TRUECOLOR_ALPHA:
+				return bitDepth == 8;
+			default:
+				return false;
+		}
+	}
+
+	private static int channels(int colorType)
+	{
+		switch (colorType)
+		{
+			case COLOR_TRUECOLOR:
+				return 3;
+			case COLOR_TRUECOLOR_ALPHA:
+				return 4;
+			default:
+				return 1;
+		}
+	}
+
+	private static int rowBytes(int width, int colorType, int bitDepth)
+	{
+		return (width * channels(colorType) * bitDepth + 7) / 8;
+	}
+
+	@Nullable
+	private static BufferedImage toImage(byte[] raw, int width, int height, int bitDepth, int colorType,
+		@Nullable byte[] palette, @Nullable byte[] transparency)
+	{
+		int stride = rowBytes(width, colorType, bitDepth);
+		// filters work on whole pixels, or whole bytes below 8 bits
+		int bpp = Math.max(1, channels(colorType) * bitDepth / 8);
+		if (!unfilter(raw, height, stride, bpp))
+		{
+			return null;
+		}
+
+		if (colorType == COLOR_PALETTE)
+		{
+			return toIndexed(raw, width, height, bitDepth, stride, palette, transparency);
+		}
+		return toArgb(raw, width, height, colorType, stride, transparency);
+	}
+
+	private static boolean unfilter(byte[] raw, int height, int stride, int bpp)
+	{
+		for (int y = 0; y < height; y++)
+		{
+			int row = y * (stride + 1) + 1;
+			int previous = row - stride - 1;
+			int filter = raw[row - 1];
+
+			for (int x = 0; x < stride; x++)
+			{
+				int a = x >= bpp ? raw[row + x - bpp] & 0xFF : 0;
+				int b = y > 0 ? raw[previous + x] & 0xFF : 0;
+				int c = x >= bpp && y > 0 ? raw[previous + x - bpp] & 0xFF : 0;
+
+				int predicted;
+				switch (filter)
+				{
+					case 0:
+						predicted = 0;
+						break;
+					case 1:
+						predicted = a;
+						break;
+					case 2:
+						predicted = b;
+						break;
+					case 3:
+						predicted = (a + b) >> 1;
+						break;
+					case 4:
+						predicted = paeth(a, b, c);
+						break;
+					default:
+						return false;
+				}
+				raw[row + x] += (byte) predicted;
+			}
+		}
+		return true;
+	}
+
+	private static int paeth(int a, int b, int c)
+	{
+		int p = a + b - c;
+		int pa = Math.abs(p - a);
+		int pb = Math.abs(p - b);
+		int pc = Math.abs(p - c);
+		if (pa <= pb && pa <= pc)
+		{
+			return a;
+		}
+		return pb <= pc ? b : c;
+	}
+
+	@Nullable
+	private static BufferedImage toIndexed(byte[] raw, int width, int height, int bitDepth, int stride,
+		@Nullable byte[] palette, @Nullable byte[] transparency)
+	{
+		if (palette == null || palette.length % 3 != 0 || palette.length == 0 || palette.length > 256 * 3)
+		{
+			return null;
+		}
+
+		int colors = palette.length / 3;
+		byte[] r = new byte[colors];
+		byte[] g = new byte[colors];
+		byte[] b = new byte[colors];
+		byte[] a = new byte[colors];
+		for (int i = 0; i < colors; i++)
+		{
+			r[i] = palette[i * 3];
+			g[i] = palette[i * 3 + 1];
+			b[i] = palette[i * 3 + 2];
+			// tRNS may be shorter than the palette, the rest is opaque
+			a[i] = transparency != null && i < transparency.length ? transparency[i] : (byte) 0xFF;
+		}
+
+		IndexColorModel colorModel = new IndexColorModel(8, colors, r, g, b, a);
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, colorModel);
+		byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+		int mask = (1 << bitDepth) - 1;
+		int perByte = 8 / bitDepth;
+		for (int y = 0; y < height; y++)
+		{
+			int row = y * (stride + 1) + 1;
+			int out = y * width;
+			if (bitDepth == 8)
+			{
+				System.arraycopy(raw, row, pixels, out, width);
+				continue;
+			}
+
+			for (int x = 0; x < width; x++)
+			{
+				int packed = raw[row + x / perByte] & 0xFF;
+				int shift = 8 - bitDepth * (x % perByte + 1);
+				pixels[out + x] = (byte) ((packed >> shift) & mask);
+			}
+		}
+
+		// an index past the palette would be drawn as garbage, ImageIO rejects those files too
+		for (byte pixel : pixels)
+		{
+			if ((pixel & 0xFF) >= colors)
+			{
+				return null;
+			}
+		}
+		return image;
+	}
+
+	private static BufferedImage toArgb(byte[] raw, int width, int height, int colorType, int stride,
+		@Nullable byte[] transparency)
+	{
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+		// single transparent colour, 16 bits per sample even at bit depth 8
+		int transparent = -1;
+		if (colorType == COLOR_TRUECOLOR && transparency != null && transparency.length == 6)
+		{
+			transparent = (transparency[1] & 0xFF) << 16 | (transparency[3] & 0xFF) << 8 | transparency[5] & 0xFF;
+		}
+
+		for (int y = 0; y < height; y++)
+		{
+			int in = y * (stride + 1) + 1;
+			int out = y * width;
+			for (int x = 0; x < width; x++)
+			{
+				int rgb = (raw[in] & 0xFF) << 16 | (raw[in + 1] & 0xFF) << 8 | raw[in + 2] & 0xFF;
+				int alpha;
+				if (colorType == COLOR_TRUECOLOR_ALPHA)
+				{
+					alpha = raw[in + 3] & 0xFF;
+					in += 4;
+				}
+				else
+				{
+					alpha = rgb == transparent ? 0 : 0xFF;
+					in += 3;
+				}
+				pixels[out + x] = alpha << 24 | rgb;
+			}
+		}
+		return image;
+	}
+
+	private static int readInt(byte[] bytes, int offset)
+	{
+		return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16
+				| (bytes[offset + 2] & 0xFF) << 8 | bytes[offset + 3] & 0xFF;
+	}
+
+	private static byte[] slice(byte[] bytes, int offset, int length)
+	{
+		byte[] slice = new byte[length];
+		System.arraycopy(bytes, offset, slice, 0, length);
+		return slice;
+	}
+}
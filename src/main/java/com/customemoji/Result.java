@@ -4,10 +4,26 @@
 
 package com.customemoji;
 
+import com.google.common.util.concurrent.AbstractFuture;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.annotation.Nullable;
@@ -85,6 +101,32 @@ public interface Result<@NonNull V, @NonNull E>
 		}
 	}
 
+	/**
+	 * Collects results into one, keeping every value and every error in order.
+	 *
+	 * @return {@link #Ok} if nothing failed, otherwise {@link #PartialOk} with whatever succeeded
+	 */
+	@NonNull
+	static <V, E> Result<List<V>, List<E>> collect(@NonNull Iterable<? extends Result<? extends V, ? extends E>> results)
+	{
+		List<V> values = new ArrayList<>();
+		List<E> errors = new ArrayList<>();
+		for (Result<? extends V, ? extends E> result : results)
+		{
+			result.ifOk(values::add);
+			result.ifError(errors::add);
+		}
+
+		if (errors.isEmpty())
+		{
+			return Ok(values);
+		}
+		else
+		{
+			return PartialOk(values, errors);
+		}
+	}
+
 	@SuppressWarnings("OptionalUsedAsFieldOrParameterType")
 	@NonNull
 	static <V> Result<V, NoSuchElementException> fromOptional(Optional<V> value)
@@ -290,6 +332,11 @@ public interface Result<@NonNull V, @NonNull E>
 
 	class ResultFutures
 	{
+		// for traversals that don't bring their own executor. Daemon threads that exit once idle, so callers
+		// never create or shut down a pool per call
+		private static final ExecutorService POOL = Executors.newCachedThreadPool(
+				new ThreadFactoryBuilder().setNameFormat("result-traverse-%d").setDaemon(true).build());
+
 		@NonNull
 		public static <V, E extends Throwable> ListenableFuture<Result<V, E>> immediateError(@NonNull E exception)
 		{
@@ -308,5 +355,221 @@ public interface Result<@NonNull V, @NonNull E>
 			return Futures.immediateFuture(Ok());
 		}
 
+		/**
+		 * Applies {@code fn} to every input on {@code executor}, then {@link Result#collect}s the results.
+		 */
+		@NonNull
+		public static <I, V, E> ListenableFuture<Result<List<V>, List<E>>> traverse(
+			@NonNull List<? extends I> inputs,
+			@NonNull Function<? super I, ? extends Result<? extends V, ? extends E>> fn,
+			@NonNull Executor executor)
+		{
+			return traverse(inputs, fn, executor, Integer.MAX_VALUE);
+		}
+
+		/**
+		 * Same as {@link #traverse(List, Function, Executor)}, with at most {@code maxConcurrency} inputs
+		 * in flight at once.<br>
+		 * Cancelling the returned future stops any input not started yet, and interrupts running ones if asked to.
+		 */
+		@NonNull
+		public static <I, V, E> ListenableFuture<Result<List<V>, List<E>>> traverse(
+			@NonNull List<? extends I> inputs,
+			@NonNull Function<? super I, ? extends Result<? extends V, ? extends E>> fn,
+			@NonNull Executor executor,
+			int maxConcurrency)
+		{
+			return new Traversal<I, V, E>(inputs, fn, false).start(executor, maxConcurrency);
+		}
+
+		/**
+		 * Same as {@link #traverse(List, Function, Executor, int)}, on a shared pool of daemon threads.
+		 */
+		@NonNull
+		public static <I, V, E> ListenableFuture<Result<List<V>, List<E>>> traverse(
+			@NonNull List<? extends I> inputs,
+			@NonNull Function<? super I, ? extends Result<? extends V, ? extends E>> fn,
+			int maxConcurrency)
+		{
+			return traverse(inputs, fn, POOL, maxConcurrency);
+		}
+
+		/**
+		 * Blocks until {@code future} completes.
+		 *
+		 * @return its result, or {@link Result#Error} holding whatever made it fail. An interrupt cancels the future
+		 * and is kept set on the calling thread
+		 */
+		@NonNull
+		public static <V> Result<V, List<Throwable>> await(@NonNull ListenableFuture<Result<V, List<Throwable>>> future)
+		{
+			try
+			{
+				return future.get();
+			} catch (InterruptedException e)
+			{
+				future.cancel(true);
+				Thread.currentThread().interrupt();
+				return Error(List.of(e));
+			} catch (ExecutionException e)
+			{
+				return Error(List.of(e.getCause()));
+			} catch (CancellationException e)
+			{
+				return Error(List.of(e));
+			}
+		}
+
+		/**
+		 * Hands the result of {@code future} to {@code then} once it completes, failures included as
+		 * {@link Result#Error}, see {@link #await}.
+		 *
+		 * @return completes after {@code then} has run
+		 */
+		@NonNull
+		public static <V> ListenableFuture<Void> whenComplete(
+			@NonNull ListenableFuture<Result<V, List<Throwable>>> future,
+			@NonNull Consumer<? super Result<V, List<Throwable>>> then)
+		{
+			SettableFuture<Void> done = SettableFuture.create();
+			future.addListener(() ->
+			{
+				try
+				{
+					then.accept(await(future));
+					done.set(null);
+				} catch (RuntimeException | Error e)
+				{
+					done.setException(e);
+				}
+			}, MoreExecutors.directExecutor());
+			return done;
+		}
+
+		/**
+		 * Like {@link #traverse(List, Function, Executor, int)}, but completes with {@link Result#Error} holding the
+		 * first error as soon as any input fails, and skips every input not started yet.
+		 */
+		@NonNull
+		public static <I, V, E> ListenableFuture<Result<List<V>, List<E>>> traverseFailFast(
+			@NonNull List<? extends I> inputs,
+			@NonNull Function<? super I, ? extends Result<? extends V, ? extends E>> fn,
+			@NonNull Executor executor,
+			int maxConcurrency)
+		{
+			return new Traversal<I, V, E>(inputs, fn, true).start(executor, maxConcurrency);
+		}
+
+		/**
+		 * Work queue shared by up to {@code maxConcurrency} lanes, each lane is one task on the executor
+		 * pulling the next input until there are none left.
+		 */
+		private static final class Traversal<I, V, E> extends AbstractFuture<Result<List<V>, List<E>>>
+		{
+			private final List<? extends I> inputs;
+			private final Function<? super I, ? extends Result<? extends V, ? extends E>> fn;
+			private final boolean failFast;
+
+			private final AtomicReferenceArray<Result<? extends V, ? extends E>> results;
+			private final AtomicInteger next = new AtomicInteger();
+			private final AtomicInteger remaining;
+			// guarded by itself, so interruptTask can't interrupt a lane that already left
+			private final Set<Thread> running = new HashSet<>();
+
+			private Traversal(List<? extends I> inputs, Function<? super I, ? extends Result<? extends V, ? extends E>> fn,
+				boolean failFast)
+			{
+				this.inputs = List.copyOf(inputs);
+				this.fn = fn;
+				this.failFast = failFast;
+				this.results = new AtomicReferenceArray<>(inputs.size());
+				this.remaining = new AtomicInteger(inputs.size());
+			}
+
+			private ListenableFuture<Result<List<V>, List<E>>> start(Executor executor, int maxConcurrency)
+			{
+				if (maxConcurrency < 1)
+				{
+					throw new IllegalArgumentException("maxConcurrency must be at least 1");
+				}
+
+				if (inputs.isEmpty())
+				{
+					set(Ok(List.of()));
+					return this;
+				}
+
+				int lanes = Math.min(maxConcurrency, inputs.size());
+				for (int i = 0; i < lanes && !isDone(); i++)
+				{
+					try
+					{
+						executor.execute(this::lane);
+					} catch (RejectedExecutionException e)
+					{
+						setException(e);
+					}
+				}
+				return this;
+			}
+
+			private void lane()
+			{
+				Thread thread = Thread.currentThread();
+				synchronized (running)
+				{
+					running.add(thread);
+				}
+				try
+				{
+					int i;
+					while (!isDone() && (i = next.getAndIncrement()) < inputs.size())
+					{
+						Result<? extends V, ? extends E> result = fn.apply(inputs.get(i));
+						results.set(i, result);
+
+						if (failFast && result.isError())
+						{
+							set(Error(List.of(result.unwrapError())));
+							return;
+						}
+
+						if (remaining.decrementAndGet() == 0)
+						{
+							List<Result<? extends V, ? extends E>> collected = new ArrayList<>(inputs.size());
+							for (int j = 0; j < results.length(); j++)
+							{
+								collected.add(results.get(j));
+							}
+							set(collect(collected));
+						}
+					}
+				} catch (RuntimeException | Error e)
+				{
+					setException(e);
+				} finally
+				{
+					synchronized (running)
+					{
+						running.remove(thread);
+					}
+					// once removed no interrupt can arrive, so one that did is cleared here rather than leaking into
+					// whatever the pool runs next
+					if (wasInterrupted())
+					{
+						Thread.interrupted();
+					}
+				}
+			}
+
+			@Override
+			protected void interruptTask()
+			{
+				synchronized (running)
+				{
+					running.forEach(Thread::interrupt);
+				}
+			}
+		}
 	}
 }
@@ -0,0 +1,165 @@
+package com.customemoji;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import javax.inject.Singleton;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.FloatControl;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Plays compressed soundojis on a few reusable voices, each decoding one block at a time into its own buffer.<br>
+ * A sound played while every voice is busy is dropped rather than queued, it would be late anyway. Lines are
+ * opened on the voice threads, never on the caller's.
+ */
+@Slf4j
+@Singleton
+class SoundojiPlayer
+{
+	static final int VOICES = 4;
+
+	private final List<Voice> voices = new ArrayList<>();
+	private final BlockingQueue<Voice> idle = new ArrayBlockingQueue<>(VOICES);
+	private final ExecutorService pool = Executors.newFixedThreadPool(VOICES,
+			new ThreadFactoryBuilder().setNameFormat("custom-emoji-voice-%d").setDaemon(true).build());
+
+	SoundojiPlayer()
+	{
+		for (int i = 0; i < VOICES; i++)
+		{
+			Voice voice = new Voice();
+			voices.add(voice);
+			idle.add(voice);
+		}
+	}
+
+	/**
+	 * @param gainDb clamped to what the line supports
+	 * @param played told once whether the sound started, right away if it was dropped for lack of a voice and
+	 *               from the voice thread otherwise
+	 * @return false if the sound was dropped because every voice is busy
+	 */
+	boolean play(ImaAdpcm sound, float gainDb, Consumer<Boolean> played)
+	{
+		Voice voice = idle.poll();
+		if (voice == null)
+		{
+			played.accept(false);
+			return false;
+		}
+
+		pool.execute(() ->
+		{
+			try
+			{
+				voice.open(sound.getFormat());
+			} catch (LineUnavailableException | IllegalArgumentException | SecurityException e)
+			{
+				idle.add(voice);
+				log.debug("Failed to open a line for {}", sound.getFormat(), e);
+				played.accept(false);
+				return;
+			}
+
+			played.accept(true);
+			try
+			{
+				voice.play(sound, gainDb);
+			} finally
+			{
+				idle.add(voice);
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Closes the lines, they are opened again on the next play.
+	 */
+	void close()
+	{
+		voices.forEach(Voice::close);
+	}
+
+	private static class Voice
+	{
+		private final byte[] buffer = new byte[ImaAdpcm.decodedBlockBytes(2)];
+		private volatile SourceDataLine line;
+		// looked up once per line, null if the line has no gain control
+		@Nullable
+		private volatile FloatControl gain;
+		private AudioFormat format;
+
+		/**
+		 * Keeps the line open between plays of the same format.
+		 */
+		void open(AudioFormat format) throws LineUnavailableException
+		{
+			if (format.getChannels() > 2)
+			{
+				throw new IllegalArgumentException("Unsupported channel count " + format.getChannels());
+			}
+
+			SourceDataLine line = this.line;
+			if (line != null && line.isOpen() && format.matches(this.format))
+			{
+				return;
+			}
+
+			close();
+			line = AudioSystem.getSourceDataLine(format);
+			// two blocks, so the next one decodes while the previous plays
+			line.open(format, ImaAdpcm.decodedBlockBytes(format.getChannels()) * 2);
+			this.gain = line.isControlSupported(FloatControl.Type.MASTER_GAIN)
+					? (FloatControl) line.getControl(FloatControl.Type.MASTER_GAIN)
+					: null;
+			this.format = format;
+			this.line = line;
+		}
+
+		void play(ImaAdpcm sound, float gainDb)
+		{
+			SourceDataLine line = this.line;
+			if (line == null)
+			{
+				return;
+			}
+
+			FloatControl gain = this.gain;
+			if (gain != null)
+			{
+				gain.setValue(Math.max(gain.getMinimum(), Math.min(gain.getMaximum(), gainDb)));
+			}
+
+			line.start();
+			for (int block = 0; block < sound.blocks() && line.isOpen(); block++)
+			{
+				int length = sound.decodeBlock(block, buffer);
+				line.write(buffer, 0, length);
+			}
+			line.drain();
+			line.stop();
+		}
+
+		void close()
+		{
+			SourceDataLine line = this.line;
+			this.line = null;
+			this.gain = null;
+			if (line != null)
+			{
+				line.close();
+			}
+		}
+	}
+}
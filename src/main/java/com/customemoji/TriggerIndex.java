@@ -0,0 +1,128 @@
+package com.customemoji;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import javax.annotation.Nullable;
+import lombok.Value;
+
+/**
+ * Immutable sorted array of every trigger, for prefix lookups.<br>
+ * A binary search finds the first match and the rest are the entries right after it, so a query is
+ * {@code O(log n + limit)} with no allocation beyond the result list.
+ */
+final class TriggerIndex
+{
+	static final TriggerIndex EMPTY = new TriggerIndex(new Entry[0]);
+
+	@Value
+	static class Entry
+	{
+		String trigger;
+		// emoji image, null for soundoji only triggers
+		@Nullable
+		File image;
+		boolean sound;
+	}
+
+	private final String[] triggers;
+	private final Entry[] entries;
+	// words in the longest phrase trigger
+	private final int maxWords;
+
+	private TriggerIndex(Entry[] entries)
+	{
+		this.entries = entries;
+		this.triggers = new String[entries.length];
+		int maxWords = 1;
+		for (int i = 0; i < entries.length; i++)
+		{
+			triggers[i] = entries[i].trigger;
+			maxWords = Math.max(maxWords, words(triggers[i]));
+		}
+		this.maxWords = maxWords;
+	}
+
+	private static int words(String trigger)
+	{
+		int words = 1;
+		for (int i = 0; i < trigger.length(); i++)
+		{
+			if (trigger.charAt(i) == ' ')
+			{
+				words++;
+			}
+		}
+		return words;
+	}
+
+	static TriggerIndex build(Collection<Entry> entries)
+	{
+		Entry[] sorted = entries.toArray(new Entry[0]);
+		Arrays.sort(sorted, Comparator.comparing(Entry::getTrigger));
+
+		// an emoji and a soundoji can share a trigger, fold them into one suggestion
+		List<Entry> merged = new ArrayList<>(sorted.length);
+		for (Entry entry : sorted)
+		{
+			Entry last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+			if (last != null && last.trigger.equals(entry.trigger))
+			{
+				merged.set(merged.size() - 1, new Entry(entry.trigger,
+						last.image != null ? last.image : entry.image,
+						last.sound || entry.sound));
+			}
+			else
+			{
+				merged.add(entry);
+			}
+		}
+
+		return new TriggerIndex(merged.toArray(new Entry[0]));
+	}
+
+	int size()
+	{
+		return entries.length;
+	}
+
+	/**
+	 * @return the number of words in the longest trigger, 1 without phrases
+	 */
+	int maxWords()
+	{
+		return maxWords;
+	}
+
+	/**
+	 * @return every entry, in alphabetical order
+	 */
+	List<Entry> entries()
+	{
+		return Collections.unmodifiableList(Arrays.asList(entries));
+	}
+
+	/**
+	 * @return up to {@code limit} entries starting with {@code prefix}, in alphabetical order
+	 */
+	List<Entry> complete(String prefix, int limit)
+	{
+		String key = prefix.toLowerCase();
+		int i = Arrays.binarySearch(triggers, key);
+		if (i < 0)
+		{
+			i = -i - 1;
+		}
+
+		List<Entry> results = new ArrayList<>(Math.min(limit, 16));
+		for (; i < triggers.length && results.size() < limit && triggers[i].startsWith(key); i++)
+		{
+			results.add(entries[i]);
+		}
+		return results;
+	}
+}
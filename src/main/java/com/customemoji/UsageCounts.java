@@ -0,0 +1,101 @@
+package com.customemoji;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * How often each trigger has been seen, across sessions.<br>
+ * The file is one {@code trigger\tcount} per line. Counts from this session come straight from
+ * {@link EmojiStats}, so nothing extra is recorded on the hot path.
+ */
+@Slf4j
+@Singleton
+class UsageCounts
+{
+	// sanity guard, only the head of the list matters for load order anyway
+	private static final int MAX_ENTRIES = 10_000;
+
+	private final EmojiStats stats;
+
+	// counts from previous sessions
+	private final Map<String, Long> persisted = new ConcurrentHashMap<>();
+
+	@Inject
+	UsageCounts(EmojiStats stats)
+	{
+		this.stats = stats;
+	}
+
+	long get(String trigger)
+	{
+		return persisted.getOrDefault(trigger, 0L) + stats.hits(trigger);
+	}
+
+	void load(File file)
+	{
+		if (!file.isFile())
+		{
+			return;
+		}
+
+		try
+		{
+			List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+			for (String line : lines)
+			{
+				int tab = line.lastIndexOf('\t');
+				if (tab <= 0)
+				{
+					continue;
+				}
+
+				try
+				{
+					persisted.merge(line.substring(0, tab), Long.parseLong(line.substring(tab + 1)), Long::sum);
+				} catch (NumberFormatException ignored) {}
+			}
+			log.debug("Loaded usage of {} triggers", persisted.size());
+		} catch (IOException e)
+		{
+			log.warn("Failed to read emoji usage {}", file, e);
+		}
+	}
+
+	void save(File file)
+	{
+		Map<String, Long> merged = new HashMap<>(persisted);
+		stats.hitCounts().forEach((trigger, count) -> merged.merge(trigger, count, Long::sum));
+
+		try
+		{
+			File temp = new File(file.getPath() + ".tmp");
+			try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8))
+			{
+				for (Map.Entry<String, Long> entry : (Iterable<Map.Entry<String, Long>>) merged.entrySet().stream()
+						.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+						.limit(MAX_ENTRIES)::iterator)
+				{
+					writer.write(entry.getKey());
+					writer.write('\t');
+					writer.write(Long.toString(entry.getValue()));
+					writer.newLine();
+				}
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e)
+		{
+			log.warn("Failed to save emoji usage {}", file, e);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.customemoji;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AliasesTest
+{
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testRead() throws IOException
+	{
+		File folder = temporaryFolder.newFolder();
+		write(folder, "lol = kekw", "# comment", "Good   Game = GG", "broken");
+
+		Result<Map<String, String>, List<Throwable>> result = Aliases.read(folder);
+
+		assertEquals(Map.of("lol", "kekw", "good game", "gg"), result.unwrap());
+		assertEquals(1, result.unwrapError().size());
+	}
+
+	@Test
+	public void testReadTree() throws IOException
+	{
+		File root = temporaryFolder.newFolder();
+		File nested = new File(root, "pack/more");
+		assertTrue(nested.mkdirs());
+		write(root, "lol = kekw");
+		write(nested, "lol = pog", "gz = grats");
+
+		Result<Map<String, String>, List<Throwable>> result = Aliases.readTree(root);
+
+		assertFalse(result.isError());
+		// the root manifest wins
+		assertEquals(Map.of("lol", "kekw", "gz", "grats"), result.unwrap());
+	}
+
+	private static void write(File folder, String... lines) throws IOException
+	{
+		Files.write(new File(folder, Aliases.FILE_NAME).toPath(), List.of(lines), StandardCharsets.UTF_8);
+	}
+}
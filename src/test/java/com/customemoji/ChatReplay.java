@@ -0,0 +1,320 @@
+package com.customemoji;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.Value;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.MessageNode;
+import net.runelite.api.Player;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.OverheadTextChanged;
+
+/**
+ * Replays a recorded chat log through {@link CustomEmojiPlugin#onChatMessage} and
+ * {@link CustomEmojiPlugin#onOverheadTextChanged} at full speed.<br>
+ * Log format is one message per line, {@code <ChatMessageType>\t<message>}. Overhead text uses the type {@code OVERHEAD}.<br>
+ * Usage: {@code ChatReplay <emoji folder> <soundoji folder|-> <chat log> [golden file] [warmup passes]}
+ */
+public class ChatReplay
+{
+	public static final String OVERHEAD = "OVERHEAD";
+
+	private static final Pattern IMG_TAG = Pattern.compile("<img=(\\d+)>");
+
+	@Value
+	public static class Entry
+	{
+		String type;
+		String message;
+
+		@Override
+		public String toString()
+		{
+			return type + "\t" + message;
+		}
+	}
+
+	@Value
+	public static class Report
+	{
+		int messages;
+		double messagesPerSecond;
+		double bytesPerMessage;
+		long p50Nanos;
+		long p99Nanos;
+
+		@Override
+		public String toString()
+		{
+			return String.format("%d messages, %.0f msg/s, %.1f B/msg, p50 %.2f us, p99 %.2f us",
+					messages, messagesPerSecond, bytesPerMessage, p50Nanos / 1000.0, p99Nanos / 1000.0);
+		}
+	}
+
+	private final CustomEmojiPlugin plugin;
+
+	// reused for every message so the harness allocates as little as possible per message
+	private final MessageNode messageNode = stub(MessageNode.class);
+	private final Player player = stub(Player.class);
+	private final String[] value = new String[1];
+	private final ChatMessage chatMessage = new ChatMessage();
+
+	public ChatReplay(CustomEmojiPlugin plugin)
+	{
+		this.plugin = plugin;
+		chatMessage.setMessageNode(messageNode);
+	}
+
+	/**
+	 * Hand written stand-in holding the one value the plugin reads and writes. A mock's per call cost would
+	 * dominate the numbers being measured.
+	 */
+	private <T> T stub(Class<T> type)
+	{
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "getValue":
+				case "getOverheadText":
+					return value[0];
+				case "setValue":
+				case "setOverheadText":
+					value[0] = (String) args[0];
+					return null;
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				case "toString":
+					return type.getSimpleName() + " stub";
+				default:
+					return defaultValue(method.getReturnType());
+			}
+		}));
+	}
+
+	private static Object defaultValue(Class<?> type)
+	{
+		if (!type.isPrimitive() || type == void.class)
+		{
+			return null;
+		}
+		// zero, false or '\0' boxed
+		return Array.get(Array.newInstance(type, 1), 0);
+	}
+
+	/**
+	 * Creates a plugin with stand-in RuneLite services and loads the given folders into it.
+	 */
+	public static CustomEmojiPlugin createPlugin(File emojiFolder, File soundojiFolder)
+	{
+		CustomEmojiPlugin plugin = new StandInPlugin().create();
+		plugin.loadEmojis(emojiFolder);
+		if (soundojiFolder != null)
+		{
+			plugin.loadSoundojis(soundojiFolder);
+		}
+		return plugin;
+	}
+
+	public static List<Entry> readLog(File file) throws IOException
+	{
+		List<Entry> entries = new ArrayList<>();
+		for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8))
+		{
+			int tab = line.indexOf('\t');
+			if (line.isEmpty() || line.startsWith("#") || tab < 0)
+			{
+				continue;
+			}
+			entries.add(new Entry(line.substring(0, tab), line.substring(tab + 1)));
+		}
+		return entries;
+	}
+
+	/**
+	 * Feeds every entry through the plugin event handlers.
+	 *
+	 * @return the message after the plugin is done with it, one per entry
+	 */
+	public List<Entry> replay(List<Entry> entries)
+	{
+		List<Entry> outputs = new ArrayList<>(entries.size());
+		for (Entry entry : entries)
+		{
+			outputs.add(new Entry(entry.getType(), normalize(dispatch(entry, true))));
+		}
+		return outputs;
+	}
+
+	/**
+	 * Times every entry through the plugin event handlers.<br>
+	 * A pass that only builds the events is timed first and subtracted, so the numbers are the plugin's own.
+	 */
+	public Report measure(List<Entry> entries)
+	{
+		Pass harness = time(entries, false);
+		Pass plugin = time(entries, true);
+
+		long harnessMedian = percentile(harness.latencies, 0.50);
+		for (int i = 0; i < plugin.latencies.length; i++)
+		{
+			plugin.latencies[i] = Math.max(0, plugin.latencies[i] - harnessMedian);
+		}
+		Arrays.sort(plugin.latencies);
+
+		int messages = plugin.latencies.length;
+		long elapsed = Math.max(1, plugin.elapsed - harness.elapsed);
+		long allocated = Math.max(0, plugin.allocated - harness.allocated);
+		return new Report(
+				messages,
+				messages / (elapsed / 1e9),
+				(double) allocated / Math.max(1, messages),
+				percentile(plugin.latencies, 0.50),
+				percentile(plugin.latencies, 0.99));
+	}
+
+	private static class Pass
+	{
+		long[] latencies;
+		long elapsed;
+		long allocated;
+	}
+
+	private Pass time(List<Entry> entries, boolean handle)
+	{
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		Pass pass = new Pass();
+		pass.latencies = new long[entries.size()];
+		long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+
+		for (int i = 0; i < pass.latencies.length; i++)
+		{
+			long messageStart = System.nanoTime();
+			dispatch(entries.get(i), handle);
+			pass.latencies[i] = System.nanoTime() - messageStart;
+		}
+
+		pass.elapsed = System.nanoTime() - start;
+		pass.allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+		Arrays.sort(pass.latencies);
+		return pass;
+	}
+
+	/**
+	 * @return a description of every line that differs from the golden file
+	 */
+	public static List<String> diff(List<Entry> expected, List<Entry> actual)
+	{
+		List<String> differences = new ArrayList<>();
+		for (int i = 0; i < Math.max(expected.size(), actual.size()); i++)
+		{
+			Entry e = i < expected.size() ? expected.get(i) : null;
+			Entry a = i < actual.size() ? actual.get(i) : null;
+			if (e == null || !e.equals(a))
+			{
+				differences.add(String.format("line %d%n- %s%n+ %s", i + 1, e, a));
+			}
+		}
+		return differences;
+	}
+
+	/**
+	 * @param handle false to only build the event, for the harness pass
+	 */
+	private String dispatch(Entry entry, boolean handle)
+	{
+		value[0] = entry.getMessage();
+
+		if (OVERHEAD.equals(entry.getType()))
+		{
+			OverheadTextChanged event = new OverheadTextChanged(player, entry.getMessage());
+			if (handle)
+			{
+				plugin.onOverheadTextChanged(event);
+			}
+		}
+		else
+		{
+			chatMessage.setType(ChatMessageType.valueOf(entry.getType()));
+			if (handle)
+			{
+				plugin.onChatMessage(chatMessage);
+			}
+		}
+
+		return value[0];
+	}
+
+	/**
+	 * Replaces icon indexes with the emoji name, so golden files don't depend on load order.
+	 */
+	private String normalize(String message)
+	{
+		Map<Integer, String> names = new HashMap<>();
+		plugin.getEmojis().values().forEach(e -> names.put(StandInPlugin.ICON_OFFSET + e.getId(), e.getText()));
+
+		Matcher matcher = IMG_TAG.matcher(message);
+		StringBuffer sb = new StringBuffer();
+		while (matcher.find())
+		{
+			String name = names.get(Integer.parseInt(matcher.group(1)));
+			matcher.appendReplacement(sb, Matcher.quoteReplacement(name == null ? matcher.group() : "<img=:" + name + ":>"));
+		}
+		matcher.appendTail(sb);
+		return sb.toString();
+	}
+
+	private static long percentile(long[] sorted, double percentile)
+	{
+		if (sorted.length == 0)
+		{
+			return 0;
+		}
+		return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length < 3)
+		{
+			System.err.println("Usage: ChatReplay <emoji folder> <soundoji folder|-> <chat log> [golden file] [warmup passes]");
+			System.exit(2);
+		}
+
+		File soundojis = "-".equals(args[1]) ? null : new File(args[1]);
+		ChatReplay replay = new ChatReplay(createPlugin(new File(args[0]), soundojis));
+		List<Entry> entries = readLog(new File(args[2]));
+
+		int warmup = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+		for (int i = 0; i < warmup; i++)
+		{
+			replay.measure(entries);
+		}
+		System.out.println(replay.measure(entries));
+
+		if (args.length > 3)
+		{
+			List<String> differences = diff(readLog(new File(args[3])), replay.replay(entries));
+			differences.forEach(System.out::println);
+			System.out.println(differences.isEmpty() ? "Matches golden file" : differences.size() + " lines differ");
+			System.exit(differences.isEmpty() ? 0 : 1);
+		}
+	}
+}
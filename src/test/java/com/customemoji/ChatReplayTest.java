@@ -0,0 +1,76 @@
+package com.customemoji;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ChatReplayTest
+{
+	// generous, these catch a rewriter that got an order of magnitude slower, not noise.
+	// Override with e.g. ./gradlew test -Dcustomemoji.maxP99Nanos=500000, the build forwards customemoji.* properties
+	private static final long MAX_P50_NANOS = Long.getLong("customemoji.maxP50Nanos", 20_000);
+	private static final long MAX_P99_NANOS = Long.getLong("customemoji.maxP99Nanos", 200_000);
+	private static final long MAX_BYTES_PER_MESSAGE = Long.getLong("customemoji.maxBytesPerMessage", 8 * 1024);
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private ChatReplay replay;
+
+	@Before
+	public void before() throws Exception
+	{
+		File emojis = temporaryFolder.newFolder("emojis");
+		SyntheticLibrary library = new SyntheticLibrary(27);
+		for (String name : List.of("kekw", "pog", "monkaw"))
+		{
+			library.writeEmoji(new File(emojis, name + ".png"));
+		}
+		Files.write(new File(emojis, Aliases.FILE_NAME).toPath(),
+				List.of("# aliases share the icon of their target", "lul = kekw", "good game = pog"));
+
+		replay = new ChatReplay(ChatReplay.createPlugin(emojis, null));
+	}
+
+	@Test
+	public void testMatchesGolden() throws Exception
+	{
+		List<ChatReplay.Entry> log = ChatReplay.readLog(resource("replay/clan-chat.log"));
+		List<ChatReplay.Entry> golden = ChatReplay.readLog(resource("replay/clan-chat.golden"));
+
+		List<String> differences = ChatReplay.diff(golden, replay.replay(log));
+
+		assertTrue(String.join("\n", differences), differences.isEmpty());
+	}
+
+	@Test
+	public void testThroughput() throws Exception
+	{
+		List<ChatReplay.Entry> log = ChatReplay.readLog(resource("replay/clan-chat.log"));
+		List<ChatReplay.Entry> load = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++)
+		{
+			load.addAll(log);
+		}
+
+		replay.measure(load);
+		ChatReplay.Report report = replay.measure(load);
+
+		assertEquals(load.size(), report.getMessages());
+		assertTrue(report.toString(), report.getP50Nanos() <= MAX_P50_NANOS);
+		assertTrue(report.toString(), report.getP99Nanos() <= MAX_P99_NANOS);
+		assertTrue(report.toString(), report.getBytesPerMessage() <= MAX_BYTES_PER_MESSAGE);
+	}
+
+	private static File resource(String name) throws Exception
+	{
+		return new File(ChatReplayTest.class.getResource(name).toURI());
+	}
+}
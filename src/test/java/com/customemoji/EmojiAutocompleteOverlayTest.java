@@ -0,0 +1,51 @@
+package com.customemoji;
+
+import java.io.File;
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class EmojiAutocompleteOverlayTest
+{
+	private final TriggerIndex index = TriggerIndex.build(List.of(
+			new TriggerIndex.Entry("gg", new File("gg.png"), false),
+			new TriggerIndex.Entry("good game", new File("gg.png"), false),
+			new TriggerIndex.Entry("good game well played", null, true),
+			new TriggerIndex.Entry("goodbye", null, true),
+			new TriggerIndex.Entry("pog", new File("pog.png"), false)));
+
+	@Test
+	public void testSuggestLastWord()
+	{
+		assertEquals(List.of("pog"), triggers(EmojiAutocompleteOverlay.suggest(index, "that was po")));
+		assertEquals(List.of("good game", "good game well played", "goodbye"),
+				triggers(EmojiAutocompleteOverlay.suggest(index, "go")));
+		assertEquals(List.of(), triggers(EmojiAutocompleteOverlay.suggest(index, "p")));
+		assertEquals(List.of(), triggers(EmojiAutocompleteOverlay.suggest(index, "po ")));
+	}
+
+	@Test
+	public void testSuggestPhrase()
+	{
+		assertEquals(List.of("good game", "good game well played"),
+				triggers(EmojiAutocompleteOverlay.suggest(index, "that was a good g")));
+		assertEquals(List.of("good game well played"),
+				triggers(EmojiAutocompleteOverlay.suggest(index, "good  game   we")));
+	}
+
+	@Test
+	public void testComplete()
+	{
+		EmojiAutocompleteOverlay.Suggestion phrase = EmojiAutocompleteOverlay.suggest(index, "that was a good g").get(0);
+		assertEquals("that was a good game ", EmojiAutocompleteOverlay.complete("that was a good g", phrase));
+
+		EmojiAutocompleteOverlay.Suggestion word = EmojiAutocompleteOverlay.suggest(index, "lol po").get(0);
+		assertEquals("lol pog ", EmojiAutocompleteOverlay.complete("lol po", word));
+	}
+
+	private static List<String> triggers(List<EmojiAutocompleteOverlay.Suggestion> suggestions)
+	{
+		return suggestions.stream().map(s -> s.getEntry().getTrigger()).collect(Collectors.toList());
+	}
+}
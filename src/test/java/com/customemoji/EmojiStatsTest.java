@@ -0,0 +1,110 @@
+package com.customemoji;
+
+import java.util.List;
+import java.util.Locale;
+import static org.junit.Assert.assertEquals;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EmojiStatsTest
+{
+	private Locale locale;
+
+	@Before
+	public void before()
+	{
+		// summary formats decimals with the default locale
+		locale = Locale.getDefault();
+		Locale.setDefault(Locale.ROOT);
+	}
+
+	@After
+	public void after()
+	{
+		Locale.setDefault(locale);
+	}
+
+	@Test
+	public void testEmptyHistogram()
+	{
+		EmojiStats.Histogram histogram = new EmojiStats.Histogram();
+		assertEquals(0, histogram.count());
+		assertEquals(0, histogram.max());
+		assertEquals(0, histogram.percentile(0.5));
+	}
+
+	@Test
+	public void testBucketEdges()
+	{
+		// 0 and 1 share the first bucket, negatives count as 0
+		assertEquals(1, single(0));
+		assertEquals(1, single(1));
+		assertEquals(1, single(-5));
+		assertEquals(3, single(2));
+		assertEquals(3, single(3));
+		assertEquals(7, single(4));
+		assertEquals(1023, single(1000));
+
+		assertEquals((1L << 62) - 1, single((1L << 62) - 1));
+		// the top bucket has no upper bound that fits
+		assertEquals(Long.MAX_VALUE, single(1L << 62));
+		assertEquals(Long.MAX_VALUE, single(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testPercentiles()
+	{
+		EmojiStats.Histogram histogram = new EmojiStats.Histogram();
+		for (int i = 0; i < 99; i++)
+		{
+			histogram.record(1000);
+		}
+		histogram.record(1_000_000);
+
+		assertEquals(100, histogram.count());
+		assertEquals(1_000_000, histogram.max());
+		assertEquals(1023, histogram.percentile(0.50));
+		assertEquals(1023, histogram.percentile(0.99));
+		assertEquals((1L << 20) - 1, histogram.percentile(1.0));
+	}
+
+	@Test
+	public void testSummary()
+	{
+		EmojiStats stats = new EmojiStats();
+		stats.recordRewrite(1500, true);
+		stats.recordRewrite(500, false);
+		stats.recordLoad("kekw.png", 2_000_000, 4096);
+		stats.recordHit("kekw");
+		stats.recordHit("kekw");
+		stats.recordHit("pog");
+		stats.getSoundsPlayed().increment();
+
+		assertEquals(List.of(
+				"Scanned 2 messages, rewrote 1. Rewrite p50 0.5us, p99 2.0us, max 1.5us",
+				"Sounds played 1, dropped 0",
+				"Loaded 1 files, decoded 4 KiB. Load p50 2.1ms, p99 2.1ms",
+				"Slowest files: kekw.png 2.0ms",
+				"Top triggers: kekw 2, pog 1"), stats.summary());
+	}
+
+	@Test
+	public void testEmptySummary()
+	{
+		assertEquals(List.of(
+				"Scanned 0 messages, rewrote 0. Rewrite p50 0.0us, p99 0.0us, max 0.0us",
+				"Sounds played 0, dropped 0",
+				"Loaded 0 files, decoded 0 KiB. Load p50 0.0us, p99 0.0us"), new EmojiStats().summary());
+	}
+
+	/**
+	 * @return the bucket upper bound reported for a histogram holding only {@code value}
+	 */
+	private static long single(long value)
+	{
+		EmojiStats.Histogram histogram = new EmojiStats.Histogram();
+		histogram.record(value);
+		return histogram.percentile(0.5);
+	}
+}
@@ -0,0 +1,232 @@
+package com.customemoji;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs {@link EmojiSync} against a local http server standing in for the emoji repository.
+ */
+public class EmojiSyncTest
+{
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+	private final AtomicInteger assetRequests = new AtomicInteger();
+	private final AtomicInteger notModified = new AtomicInteger();
+
+	private HttpServer server;
+	private String manifestUrl;
+	private File store;
+	private EmojiSync emojiSync;
+
+	@Before
+	public void before() throws Exception
+	{
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", this::handle);
+		server.start();
+
+		manifestUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/repo/manifest.json";
+		store = temporaryFolder.newFolder("emoji-sync");
+		emojiSync = new EmojiSync(new OkHttpClient(), new Gson());
+	}
+
+	@After
+	public void after()
+	{
+		server.stop(0);
+	}
+
+	@Test
+	public void testIncrementalSync() throws Exception
+	{
+		byte[] kekw = emoji("kekw");
+		byte[] pipe = "not really a wav".getBytes(StandardCharsets.UTF_8);
+		files.put("/repo/kekw.png", kekw);
+		files.put("/repo/sounds/pipe.wav", pipe);
+		publishManifest("kekw", "kekw.png", kekw, "pipe", "sounds/pipe.wav", pipe);
+
+		Result<EmojiSync.SyncResult, List<Throwable>> first = emojiSync.sync(manifestUrl, store);
+		assertTrue(first.isOk() && !first.isError());
+		assertEquals(2, first.unwrap().getDownloaded());
+		assertEquals(2, assetRequests.get());
+
+		EmojiSync.SyncedAsset synced = first.unwrap().getAssets().get(0);
+		assertEquals(EmojiSync.Kind.EMOJI, synced.getKind());
+		assertEquals("kekw", synced.getName());
+		assertEquals(EmojiSync.objectFile(store, sha256(kekw), "kekw.png"), synced.getFile());
+		assertArrayEquals(kekw, Files.readAllBytes(synced.getFile().toPath()));
+
+		// unchanged manifest, nothing should be fetched again
+		Result<EmojiSync.SyncResult, List<Throwable>> second = emojiSync.sync(manifestUrl, store);
+		assertEquals(0, second.unwrap().getDownloaded());
+		assertEquals(2, second.unwrap().getAssets().size());
+		assertEquals(1, notModified.get());
+		assertEquals(2, assetRequests.get());
+
+		// only the changed asset is downloaded
+		byte[] kekw2 = emoji("kekw2");
+		files.put("/repo/kekw.png", kekw2);
+		publishManifest("kekw", "kekw.png", kekw2, "pipe", "sounds/pipe.wav", pipe);
+
+		Result<EmojiSync.SyncResult, List<Throwable>> third = emojiSync.sync(manifestUrl, store);
+		assertEquals(1, third.unwrap().getDownloaded());
+		assertEquals(3, assetRequests.get());
+		assertArrayEquals(kekw2, Files.readAllBytes(third.unwrap().getAssets().get(0).getFile().toPath()));
+	}
+
+	@Test
+	public void testHashMismatchIsRejected() throws Exception
+	{
+		byte[] kekw = emoji("kekw");
+		files.put("/repo/kekw.png", emoji("tampered"));
+		publishManifest("kekw", "kekw.png", kekw, "pipe", "pipe.wav", new byte[0]);
+
+		Result<EmojiSync.SyncResult, List<Throwable>> result = emojiSync.sync(manifestUrl, store);
+
+		assertTrue(result.isError());
+		assertEquals(2, result.unwrapError().size());
+		assertTrue(result.unwrap().getAssets().isEmpty());
+		assertTrue(!EmojiSync.objectFile(store, sha256(kekw), "kekw.png").exists());
+	}
+
+	@Test
+	public void testOfflineUsesCachedManifest() throws Exception
+	{
+		byte[] kekw = emoji("kekw");
+		files.put("/repo/kekw.png", kekw);
+		files.put("/repo/pipe.wav", kekw);
+		publishManifest("kekw", "kekw.png", kekw, "pipe", "pipe.wav", kekw);
+		assertTrue(emojiSync.sync(manifestUrl, store).isOk());
+
+		server.stop(0);
+
+		Result<EmojiSync.SyncResult, List<Throwable>> result = emojiSync.sync(manifestUrl, store);
+		assertTrue(result.isOk());
+		assertTrue(result.isError());
+		assertEquals(2, result.unwrap().getAssets().size());
+	}
+
+	@Test
+	public void testForeignAssetUrlsAreRejected() throws Exception
+	{
+		int port = server.getAddress().getPort();
+		byte[] kekw = emoji("kekw");
+		files.put("/repo/kekw.png", kekw);
+		publishManifest("kekw", "http://localhost:" + port + "/repo/kekw.png", kekw,
+				"pipe", "https://127.0.0.1:" + port + "/repo/kekw.png", kekw);
+
+		Result<EmojiSync.SyncResult, List<Throwable>> result = emojiSync.sync(manifestUrl, store);
+
+		assertEquals(2, result.unwrapError().size());
+		assertTrue(result.unwrap().getAssets().isEmpty());
+		assertEquals(0, assetRequests.get());
+	}
+
+	@Test
+	public void testAssetUrl()
+	{
+		HttpUrl manifest = HttpUrl.get("https://example.com/repo/manifest.json");
+
+		assertEquals(HttpUrl.get("https://example.com/repo/sounds/pipe.wav"), EmojiSync.assetUrl(manifest, "sounds/pipe.wav"));
+		assertEquals(HttpUrl.get("https://example.com/kekw.png"), EmojiSync.assetUrl(manifest, "/kekw.png"));
+		assertRejected(manifest, "https://evil.example/kekw.png");
+		assertRejected(manifest, "//evil.example/kekw.png");
+		assertRejected(manifest, "http://example.com/repo/kekw.png");
+		assertRejected(manifest, "file:///etc/passwd");
+	}
+
+	private static void assertRejected(HttpUrl manifest, String file)
+	{
+		try
+		{
+			EmojiSync.assetUrl(manifest, file);
+			fail("accepted " + file);
+		} catch (IllegalArgumentException expected)
+		{
+		}
+	}
+
+	private void handle(HttpExchange exchange) throws IOException
+	{
+		String path = exchange.getRequestURI().getPath();
+		byte[] body = files.get(path);
+
+		if (body == null)
+		{
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+			return;
+		}
+
+		if (path.endsWith("manifest.json"))
+		{
+			String etag = "\"" + sha256(body) + "\"";
+			exchange.getResponseHeaders().add("ETag", etag);
+			if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match")))
+			{
+				notModified.incrementAndGet();
+				exchange.sendResponseHeaders(304, -1);
+				exchange.close();
+				return;
+			}
+		}
+		else
+		{
+			assetRequests.incrementAndGet();
+		}
+
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody())
+		{
+			out.write(body);
+		}
+	}
+
+	private void publishManifest(String emoji, String emojiFile, byte[] emojiBytes,
+		String soundoji, String soundojiFile, byte[] soundojiBytes)
+	{
+		String manifest = String.format(
+				"{\"emojis\":[{\"name\":\"%s\",\"file\":\"%s\",\"sha256\":\"%s\"}]," +
+						"\"soundojis\":[{\"name\":\"%s\",\"file\":\"%s\",\"sha256\":\"%s\"}]}",
+				emoji, emojiFile, sha256(emojiBytes), soundoji, soundojiFile, sha256(soundojiBytes));
+		files.put("/repo/manifest.json", manifest.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private byte[] emoji(String name) throws IOException
+	{
+		File file = temporaryFolder.newFile(name + ".png");
+		new SyntheticLibrary(name.hashCode()).writeEmoji(file);
+		return Files.readAllBytes(file.toPath());
+	}
+
+	private static String sha256(byte[] bytes)
+	{
+		return Hashing.sha256().hashBytes(bytes).toString();
+	}
+}
@@ -0,0 +1,81 @@
+package com.customemoji;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EmojiThumbnailsTest
+{
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final EmojiThumbnails thumbnails = new EmojiThumbnails();
+
+	@Test
+	public void testGenerateAndAccount() throws Exception
+	{
+		File file = temporaryFolder.newFile("kekw.png");
+		new SyntheticLibrary(40).writeEmoji(file);
+
+		CountDownLatch generated = new CountDownLatch(1);
+		assertNull(thumbnails.get(file, SyntheticLibrary.EMOJI_SIZE, generated::countDown));
+		assertTrue(generated.await(5, TimeUnit.SECONDS));
+
+		BufferedImage thumbnail = thumbnails.get(file, SyntheticLibrary.EMOJI_SIZE);
+		assertNotNull(thumbnail);
+		assertEquals(CustomEmojiPlugin.imageBytes(thumbnail), thumbnails.getBytes());
+
+		thumbnails.clear();
+		assertEquals(0, thumbnails.getBytes());
+		assertNull(thumbnails.get(file, SyntheticLibrary.EMOJI_SIZE));
+	}
+
+	@Test
+	public void testWorkerSurvivesErrors() throws Exception
+	{
+		File first = temporaryFolder.newFile("kekw.png");
+		File second = temporaryFolder.newFile("pog.png");
+		new SyntheticLibrary(41).writeEmoji(first);
+		new SyntheticLibrary(42).writeEmoji(second);
+
+		CountDownLatch failed = new CountDownLatch(1);
+		thumbnails.get(first, SyntheticLibrary.EMOJI_SIZE, () ->
+		{
+			failed.countDown();
+			throw new AssertionError("painting failed");
+		});
+		assertTrue(failed.await(5, TimeUnit.SECONDS));
+
+		// the failure ended the drain, the next request has to start another
+		CountDownLatch generated = new CountDownLatch(1);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (thumbnails.get(second, SyntheticLibrary.EMOJI_SIZE, generated::countDown) == null
+				&& !generated.await(10, TimeUnit.MILLISECONDS))
+		{
+			assertTrue(System.nanoTime() < deadline);
+		}
+		assertNotNull(thumbnails.get(second, SyntheticLibrary.EMOJI_SIZE));
+		assertNotNull(thumbnails.get(first, SyntheticLibrary.EMOJI_SIZE));
+	}
+
+	@Test
+	public void testMissingImage() throws Exception
+	{
+		File file = temporaryFolder.newFile("broken.png");
+
+		CountDownLatch generated = new CountDownLatch(1);
+		thumbnails.get(file, SyntheticLibrary.EMOJI_SIZE, generated::countDown);
+		assertTrue(generated.await(5, TimeUnit.SECONDS));
+
+		assertNull(thumbnails.get(file, SyntheticLibrary.EMOJI_SIZE));
+		assertEquals(0, thumbnails.getBytes());
+	}
+}
@@ -0,0 +1,72 @@
+package com.customemoji;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ImaAdpcmTest
+{
+	@Test
+	public void testMonoRoundTrip()
+	{
+		assertRoundTrip(1, 22050, 0.25);
+	}
+
+	@Test
+	public void testStereoRoundTrip()
+	{
+		// not a whole number of blocks, and an odd number of samples in the last one
+		assertRoundTrip(2, 44100, 0.1);
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		ImaAdpcm sound = ImaAdpcm.encode(22050, 1, new byte[0]);
+
+		assertEquals(0, sound.getFrames());
+		assertEquals(0, sound.blocks());
+		assertEquals(0, sound.memoryBytes());
+	}
+
+	private static void assertRoundTrip(int channels, int sampleRate, double seconds)
+	{
+		int frames = (int) (sampleRate * seconds) | 1;
+		byte[] pcm = new byte[frames * channels * 2];
+		for (int frame = 0; frame < frames; frame++)
+		{
+			for (int channel = 0; channel < channels; channel++)
+			{
+				int sample = (int) (8000 * Math.sin(2 * Math.PI * (440 + 110 * channel) * frame / sampleRate));
+				int at = (frame * channels + channel) * 2;
+				pcm[at] = (byte) sample;
+				pcm[at + 1] = (byte) (sample >> 8);
+			}
+		}
+
+		ImaAdpcm sound = ImaAdpcm.encode(sampleRate, channels, pcm);
+
+		assertEquals(frames, sound.getFrames());
+		assertEquals(channels, sound.getFormat().getChannels());
+		assertTrue("Compressed to " + sound.memoryBytes(), sound.memoryBytes() * 3.9 < pcm.length);
+
+		byte[] buffer = new byte[ImaAdpcm.decodedBlockBytes(channels)];
+		int position = 0;
+		int maxError = 0;
+		for (int block = 0; block < sound.blocks(); block++)
+		{
+			int length = sound.decodeBlock(block, buffer);
+			for (int i = 0; i < length; i += 2)
+			{
+				int expected = (short) ((pcm[position + i + 1] << 8) | (pcm[position + i] & 0xFF));
+				int actual = (short) ((buffer[i + 1] << 8) | (buffer[i] & 0xFF));
+				maxError = Math.max(maxError, Math.abs(expected - actual));
+			}
+			position += length;
+		}
+
+		assertEquals(pcm.length, position);
+		// a few percent of the amplitude
+		assertTrue("Max error " + maxError, maxError < 400);
+	}
+}
@@ -0,0 +1,150 @@
+package com.customemoji;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Load scaling harness. Loads a library of {@code n} and of {@code 4n} files and checks that time and retained heap
+ * grow no faster than linearly, give or take noise. It writes thousands of files and forces gc, so it only runs
+ * with {@code -Dcustomemoji.loadScaling=true}, which the build forwards to the test JVM like every other
+ * {@code customemoji.*} property. Sizes and the allowed ratio can be overridden too, e.g.<br>
+ * {@code ./gradlew test -Dcustomemoji.loadScaling=true -Dcustomemoji.emojis=1000 -Dcustomemoji.maxScaling=5}
+ */
+public class LoadScalingTest
+{
+	private static final boolean ENABLED = Boolean.getBoolean("customemoji.loadScaling");
+
+	private static final int EMOJIS = Integer.getInteger("customemoji.emojis", 500);
+	private static final int SOUNDOJIS = Integer.getInteger("customemoji.soundojis", 50);
+	private static final int FACTOR = 4;
+
+	// linear is FACTOR, the rest is allowance for noise. Quadratic behaviour would be FACTOR * FACTOR
+	private static final double MAX_SCALING = Double.parseDouble(System.getProperty("customemoji.maxScaling", "6"));
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final StandInPlugin standIn = new StandInPlugin();
+
+	@Before
+	public void before()
+	{
+		Assume.assumeTrue("Enable with -Dcustomemoji.loadScaling=true", ENABLED);
+	}
+
+	@Test
+	public void testEmojiLoadScaling() throws Exception
+	{
+		SyntheticLibrary library = new SyntheticLibrary(26);
+		BiConsumer<File, Integer> write = (folder, count) -> write(() -> library.writeEmojis(folder, count));
+
+		Sample small = load("emojis", EMOJIS, true, write, CustomEmojiPlugin::loadEmojis);
+		Sample large = load("emojis", EMOJIS * FACTOR, true, write, CustomEmojiPlugin::loadEmojis);
+
+		assertScaling("Emoji", small, large);
+	}
+
+	@Test
+	public void testSoundojiLoadScaling() throws Exception
+	{
+		SyntheticLibrary library = new SyntheticLibrary(27);
+		BiConsumer<File, Integer> write = (folder, count) -> write(() -> library.writeSoundojis(folder, count));
+
+		Sample small = load("soundojis", SOUNDOJIS, false, write, CustomEmojiPlugin::loadSoundojis);
+		Sample large = load("soundojis", SOUNDOJIS * FACTOR, false, write, CustomEmojiPlugin::loadSoundojis);
+
+		assertScaling("Soundoji", small, large);
+	}
+
+	private static class Sample
+	{
+		long nanos;
+		long heap;
+		int loaded;
+	}
+
+	private interface Writer
+	{
+		void write() throws Exception;
+	}
+
+	private static void write(Writer writer)
+	{
+		try
+		{
+			writer.write();
+		} catch (Exception e)
+		{
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Loads {@code count} files into a fresh plugin, after a warm up load of the same size so the jit and
+	 * class loading don't land on the first sample only.
+	 *
+	 * @param icons whether every file should register exactly one chat icon
+	 */
+	private Sample load(String name, int count, boolean icons, BiConsumer<File, Integer> write,
+		BiConsumer<CustomEmojiPlugin, File> loader) throws Exception
+	{
+		File warmUp = temporaryFolder.newFolder(name + "-warmup-" + count);
+		write.accept(warmUp, count);
+		loader.accept(standIn.create(), warmUp);
+
+		File folder = temporaryFolder.newFolder(name + "-" + count);
+		write.accept(folder, count);
+
+		CustomEmojiPlugin plugin = standIn.create();
+		int iconsBefore = standIn.getIconsRegistered();
+		Sample sample = new Sample();
+		long heapBefore = usedHeap();
+		long start = System.nanoTime();
+
+		loader.accept(plugin, folder);
+
+		sample.nanos = System.nanoTime() - start;
+		sample.heap = Math.max(1, usedHeap() - heapBefore);
+		sample.loaded = plugin.getEmojis().size() + plugin.getSoundojis().size();
+
+		assertTrue(plugin.getErrors().toString(), plugin.getErrors().isEmpty());
+		assertEquals(count, sample.loaded);
+		assertEquals(icons ? count : 0, standIn.getIconsRegistered() - iconsBefore);
+		return sample;
+	}
+
+	private static void assertScaling(String kind, Sample small, Sample large)
+	{
+		double time = (double) large.nanos / small.nanos;
+		double heap = (double) large.heap / small.heap;
+
+		assertTrue(String.format("%s load time grew %.1fx for %dx the files (%d ms to %d ms)", kind, time, FACTOR,
+						TimeUnit.NANOSECONDS.toMillis(small.nanos), TimeUnit.NANOSECONDS.toMillis(large.nanos)),
+				time <= MAX_SCALING);
+		assertTrue(String.format("%s retained heap grew %.1fx for %dx the files (%d KiB to %d KiB)", kind, heap, FACTOR,
+						small.heap / 1024, large.heap / 1024),
+				heap <= MAX_SCALING);
+	}
+
+	static long usedHeap() throws InterruptedException
+	{
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		// a few passes until the number settles
+		for (int i = 0; i < 5; i++)
+		{
+			System.gc();
+			Thread.sleep(50);
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+}
@@ -0,0 +1,66 @@
+package com.customemoji;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LoudnessTest
+{
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testFullScaleSquare() throws Exception
+	{
+		byte[] pcm = new byte[4000];
+		for (int i = 0; i < pcm.length; i += 2)
+		{
+			short sample = (i / 2) % 2 == 0 ? Short.MAX_VALUE : -Short.MAX_VALUE;
+			pcm[i] = (byte) sample;
+			pcm[i + 1] = (byte) (sample >> 8);
+		}
+
+		Loudness loudness = Loudness.measure(new ByteArrayInputStream(pcm));
+
+		assertEquals(0f, loudness.getPeakDb(), 0.01f);
+		assertEquals(0f, loudness.getRmsDb(), 0.01f);
+		// can't go up without clipping, so it comes down to the target
+		assertEquals(Loudness.TARGET_RMS_DB, loudness.normalizationGain(), 0.01f);
+	}
+
+	@Test
+	public void testMeasureWav() throws Exception
+	{
+		File file = temporaryFolder.newFile("pipe.wav");
+		new SyntheticLibrary(36).writeSoundoji(file);
+
+		Loudness loudness;
+		try (AudioInputStream source = AudioSystem.getAudioInputStream(file))
+		{
+			AudioFormat format = source.getFormat();
+			AudioFormat pcm16 = new AudioFormat(format.getSampleRate(), 16, format.getChannels(), true, false);
+			loudness = Loudness.measure(AudioSystem.getAudioInputStream(pcm16, source));
+		}
+		float gain = loudness.normalizationGain();
+
+		// synthetic soundojis are a sine at about a quarter of full scale
+		assertEquals(-15.2f, loudness.getRmsDb(), 0.5f);
+		assertEquals(Loudness.TARGET_RMS_DB - loudness.getRmsDb(), gain, 0.01f);
+		assertTrue(loudness.getPeakDb() + gain <= Loudness.PEAK_CEILING_DB);
+	}
+
+	@Test
+	public void testSilence() throws Exception
+	{
+		Loudness loudness = Loudness.measure(new ByteArrayInputStream(new byte[1000]));
+
+		assertEquals(0f, loudness.normalizationGain(), 0f);
+	}
+}
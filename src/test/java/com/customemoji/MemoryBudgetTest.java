@@ -0,0 +1,114 @@
+package com.customemoji;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class MemoryBudgetTest
+{
+	private final MemoryBudget budget = new MemoryBudget();
+	private final List<String> evicted = new ArrayList<>();
+
+	@Test
+	public void testReserveAndRelease()
+	{
+		budget.reserve("emoji:kekw", 100, null);
+		budget.reserve("soundoji:pog", 200, evictor("soundoji:pog"));
+		assertEquals(300, budget.getUsed());
+
+		// reserving again replaces the previous size
+		budget.reserve("soundoji:pog", 50, evictor("soundoji:pog"));
+		assertEquals(150, budget.getUsed());
+
+		budget.release("soundoji:pog");
+		budget.release("soundoji:missing");
+		assertEquals(100, budget.getUsed());
+		assertEquals(List.of(), evicted);
+	}
+
+	@Test
+	public void testEvictsColdestFirst()
+	{
+		budget.setCeiling(300);
+		budget.reserve("soundoji:a", 100, evictor("soundoji:a"));
+		budget.reserve("soundoji:b", 100, evictor("soundoji:b"));
+		budget.reserve("soundoji:c", 100, evictor("soundoji:c"));
+
+		budget.reserve("soundoji:d", 150, evictor("soundoji:d"));
+		assertEquals(List.of("soundoji:a", "soundoji:b"), evicted);
+		assertEquals(250, budget.getUsed());
+	}
+
+	@Test
+	public void testTouch()
+	{
+		budget.setCeiling(300);
+		budget.reserve("soundoji:a", 100, evictor("soundoji:a"));
+		budget.reserve("soundoji:b", 100, evictor("soundoji:b"));
+		budget.reserve("soundoji:c", 100, evictor("soundoji:c"));
+		budget.touch("soundoji:a");
+
+		budget.reserve("soundoji:d", 100, evictor("soundoji:d"));
+		assertEquals(List.of("soundoji:b"), evicted);
+	}
+
+	@Test
+	public void testTrimSkipsPinnedAndKept()
+	{
+		budget.setCeiling(200);
+		budget.reserve("emoji:kekw", 150, null);
+		budget.reserve("soundoji:busy", 50, () -> false);
+
+		// neither the emoji, the sound that can't be released, nor the key being reserved are evicted
+		budget.reserve("soundoji:pog", 100, evictor("soundoji:pog"));
+		assertEquals(List.of(), evicted);
+		assertEquals(300, budget.getUsed());
+		assertFalse(budget.fits(1));
+
+		budget.reserve("soundoji:gg", 10, evictor("soundoji:gg"));
+		assertEquals(List.of("soundoji:pog"), evicted);
+		assertEquals(210, budget.getUsed());
+	}
+
+	@Test
+	public void testCeilingChanges()
+	{
+		budget.reserve("soundoji:a", 100, evictor("soundoji:a"));
+		budget.reserve("soundoji:b", 100, evictor("soundoji:b"));
+		assertTrue(budget.fits(Long.MAX_VALUE - 200));
+
+		budget.setCeiling(150);
+		assertEquals(List.of("soundoji:a"), evicted);
+		assertEquals(100, budget.getUsed());
+		assertTrue(budget.fits(50));
+		assertFalse(budget.fits(51));
+
+		// zero or less lifts the ceiling
+		budget.setCeiling(0);
+		assertEquals(Long.MAX_VALUE, budget.getCeiling());
+		budget.reserve("soundoji:c", 1000, evictor("soundoji:c"));
+		assertEquals(List.of("soundoji:a"), evicted);
+		assertEquals(1100, budget.getUsed());
+	}
+
+	@Test
+	public void testSummary()
+	{
+		budget.setCeiling(64 * 1024);
+		budget.reserve("emoji:kekw", 2048, null);
+		budget.reserve("soundoji:pog", 4096, evictor("soundoji:pog"));
+
+		assertEquals(List.of(
+				"Memory 6 KiB of 64 KiB (emojis 2 KiB, soundojis 4 KiB)",
+				"Largest assets: soundoji:pog 4 KiB, emoji:kekw 2 KiB"), budget.summary());
+	}
+
+	private BooleanSupplier evictor(String key)
+	{
+		return () -> evicted.add(key);
+	}
+}
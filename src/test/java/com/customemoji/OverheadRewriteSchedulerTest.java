@@ -0,0 +1,83 @@
+package com.customemoji;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.runelite.api.Player;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OverheadRewriteSchedulerTest
+{
+	private final OverheadRewriteScheduler scheduler = new OverheadRewriteScheduler();
+	private final List<String> rewritten = new ArrayList<>();
+
+	@Test
+	public void testDefersPastBudget()
+	{
+		scheduler.setBudgetNanos(1000);
+		assertTrue(scheduler.hasBudget());
+
+		scheduler.charge(1000);
+		assertFalse(scheduler.hasBudget());
+
+		Player a = player("kekw");
+		Player b = player("pog");
+		scheduler.defer(a, "kekw");
+		scheduler.defer(b, "pog");
+
+		// each rewrite spends the whole budget, so one per tick
+		scheduler.tick((actor, text) ->
+		{
+			rewritten.add(text);
+			scheduler.charge(1000);
+		});
+		assertEquals(List.of("kekw"), rewritten);
+		assertEquals(1, scheduler.pendingCount());
+
+		scheduler.tick((actor, text) -> rewritten.add(text));
+		assertEquals(List.of("kekw", "pog"), rewritten);
+		assertEquals(0, scheduler.pendingCount());
+		assertEquals(2, scheduler.getDeferred());
+	}
+
+	@Test
+	public void testDropsStale()
+	{
+		scheduler.setBudgetNanos(1000);
+		scheduler.charge(1000);
+
+		Player a = player("kekw");
+		Player b = player("pog");
+		scheduler.defer(a, "kekw");
+		scheduler.defer(b, "pog");
+		// replaced before it ran
+		scheduler.defer(a, "kekw kekw");
+		// and the other one changed on its own
+		when(b.getOverheadText()).thenReturn("something else");
+
+		scheduler.tick((actor, text) -> rewritten.add(text));
+
+		assertEquals(List.of(), rewritten);
+		// replaced, then its text no longer matches either, plus the changed one
+		assertEquals(3, scheduler.getDropped());
+	}
+
+	@Test
+	public void testUnlimitedBudget()
+	{
+		scheduler.setBudgetNanos(0);
+		scheduler.charge(Long.MAX_VALUE / 2);
+		assertTrue(scheduler.hasBudget());
+	}
+
+	private static Player player(String text)
+	{
+		Player player = mock(Player.class);
+		when(player.getOverheadText()).thenReturn(text);
+		return player;
+	}
+}
@@ -0,0 +1,205 @@
+package com.customemoji;
+
+import com.google.common.io.Resources;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PngDecoderTest
+{
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final Random random = new Random(39);
+
+	@Test
+	public void testIndexed()
+	{
+		BufferedImage image = new BufferedImage(18, 21, BufferedImage.TYPE_BYTE_INDEXED);
+		fill(image);
+
+		BufferedImage decoded = assertSameAsImageIO(png(image));
+
+		assertTrue(decoded.getColorModel() instanceof IndexColorModel);
+	}
+
+	@Test
+	public void testPackedIndexed()
+	{
+		for (int bits : new int[]{1, 2, 4})
+		{
+			int colors = 1 << bits;
+			byte[] r = new byte[colors];
+			byte[] g = new byte[colors];
+			byte[] b = new byte[colors];
+			byte[] a = new byte[colors];
+			random.nextBytes(r);
+			random.nextBytes(g);
+			random.nextBytes(b);
+			random.nextBytes(a);
+
+			// odd width, so rows end part way through a byte
+			BufferedImage image = new BufferedImage(17, 5, BufferedImage.TYPE_BYTE_BINARY,
+					new IndexColorModel(bits, colors, r, g, b, a));
+			WritableRaster raster = image.getRaster();
+			for (int y = 0; y < image.getHeight(); y++)
+			{
+				for (int x = 0; x < image.getWidth(); x++)
+				{
+					raster.setSample(x, y, 0, random.nextInt(colors));
+				}
+			}
+
+			assertSameAsImageIO(png(image));
+		}
+	}
+
+	@Test
+	public void testTruecolor()
+	{
+		BufferedImage image = new BufferedImage(13, 13, BufferedImage.TYPE_INT_RGB);
+		fill(image);
+
+		assertSameAsImageIO(png(image));
+	}
+
+	@Test
+	public void testTruecolorAlpha()
+	{
+		BufferedImage image = new BufferedImage(32, 9, BufferedImage.TYPE_INT_ARGB);
+		fill(image);
+
+		assertSameAsImageIO(png(image));
+	}
+
+	@Test
+	public void testExampleEmoji() throws Exception
+	{
+		assertSameAsImageIO(Resources.toByteArray(CustomEmojiPlugin.EXAMPLE_EMOJI));
+	}
+
+	@Test
+	public void testFallsBackToImageIO() throws Exception
+	{
+		// grayscale isn't handled by the fast path
+		BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_BYTE_GRAY);
+		fill(image);
+		byte[] png = png(image);
+		assertNull(PngDecoder.decode(png));
+
+		File file = temporaryFolder.newFile("gray.png");
+		Files.write(file.toPath(), png);
+		BufferedImage read = PngDecoder.read(file);
+		assertNotNull(read);
+		assertEquals(8, read.getWidth());
+	}
+
+	@Test
+	public void testBrokenFiles() throws Exception
+	{
+		byte[] png = png(new BufferedImage(16, 16, BufferedImage.TYPE_BYTE_INDEXED));
+
+		assertNull(PngDecoder.decode(new byte[0]));
+		assertNull(PngDecoder.decode(Arrays.copyOf(png, png.length / 2)));
+
+		File file = temporaryFolder.newFile("not-an-image.png");
+		Files.write(file.toPath(), new byte[]{1, 2, 3});
+		assertNull(PngDecoder.read(file));
+	}
+
+	@Test
+	public void testOversizedChunks()
+	{
+		// PLTE claiming nearly 2 GiB, the length check must not overflow into a huge allocation
+		assertNull(PngDecoder.decode(paletteImage(Integer.MAX_VALUE - 8, new byte[12])));
+		// PLTE cut short by the end of the file
+		assertNull(PngDecoder.decode(paletteImage(768, new byte[12])));
+	}
+
+	/**
+	 * @return a 1x1 palette PNG header followed by a PLTE chunk claiming {@code length} bytes
+	 */
+	private static byte[] paletteImage(int length, byte[] data)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.writeBytes(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+		chunk(out, "IHDR", 13, new byte[]{0, 0, 0, 1, 0, 0, 0, 1, 8, 3, 0, 0, 0});
+		chunk(out, "PLTE", length, data);
+		return out.toByteArray();
+	}
+
+	private static void chunk(ByteArrayOutputStream out, String type, int length, byte[] data)
+	{
+		out.writeBytes(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+		out.writeBytes(type.getBytes(StandardCharsets.US_ASCII));
+		out.writeBytes(data);
+		// crc, not checked
+		out.writeBytes(new byte[4]);
+	}
+
+	private BufferedImage assertSameAsImageIO(byte[] png)
+	{
+		BufferedImage decoded = PngDecoder.decode(png);
+		assertNotNull(decoded);
+
+		BufferedImage expected;
+		try
+		{
+			expected = ImageIO.read(new ByteArrayInputStream(png));
+		} catch (Exception e)
+		{
+			throw new AssertionError(e);
+		}
+
+		assertEquals(expected.getWidth(), decoded.getWidth());
+		assertEquals(expected.getHeight(), decoded.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++)
+		{
+			for (int x = 0; x < expected.getWidth(); x++)
+			{
+				assertEquals("pixel " + x + "," + y, expected.getRGB(x, y), decoded.getRGB(x, y));
+			}
+		}
+		return decoded;
+	}
+
+	private void fill(BufferedImage image)
+	{
+		for (int y = 0; y < image.getHeight(); y++)
+		{
+			for (int x = 0; x < image.getWidth(); x++)
+			{
+				int alpha = random.nextInt(4) == 0 ? 0x40 : 0xFF;
+				image.setRGB(x, y, alpha << 24 | random.nextInt(0x1000000));
+			}
+		}
+	}
+
+	private static byte[] png(BufferedImage image)
+	{
+		try
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ImageIO.write(image, "png", out);
+			return out.toByteArray();
+		} catch (Exception e)
+		{
+			throw new AssertionError(e);
+		}
+	}
+}
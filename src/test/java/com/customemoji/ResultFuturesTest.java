@@ -0,0 +1,202 @@
+package com.customemoji;
+
+import static com.customemoji.Result.Error;
+import static com.customemoji.Result.Ok;
+import com.customemoji.Result.ResultFutures;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ResultFuturesTest
+{
+	private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+	@After
+	public void after()
+	{
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testTraverseCollectsInOrder() throws Exception
+	{
+		List<Integer> inputs = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+
+		Result<List<Integer>, List<String>> result = ResultFutures.traverse(inputs,
+				i -> i % 10 == 0 ? Result.<Integer, String>Error("bad " + i) : Result.<Integer, String>Ok(i * 2),
+				executor, 4).get(5, TimeUnit.SECONDS);
+
+		assertTrue(result.isOk());
+		assertTrue(result.isError());
+		assertEquals(90, result.unwrap().size());
+		assertEquals(Integer.valueOf(2), result.unwrap().get(0));
+		assertEquals(Integer.valueOf(198), result.unwrap().get(89));
+		assertEquals("bad 0", result.unwrapError().get(0));
+		assertEquals("bad 90", result.unwrapError().get(9));
+	}
+
+	@Test
+	public void testTraverseEmpty() throws Exception
+	{
+		Result<List<Integer>, List<String>> result =
+				ResultFutures.<Integer, Integer, String>traverse(List.of(), Result::Ok, executor).get();
+
+		assertTrue(result.isOk());
+		assertFalse(result.isError());
+		assertTrue(result.unwrap().isEmpty());
+	}
+
+	@Test
+	public void testBoundedConcurrency() throws Exception
+	{
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		List<Integer> inputs = IntStream.range(0, 50).boxed().collect(Collectors.toList());
+
+		ResultFutures.<Integer, Integer, String>traverse(inputs, i ->
+		{
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			sleep(2);
+			inFlight.decrementAndGet();
+			return Ok(i);
+		}, executor, 3).get(5, TimeUnit.SECONDS);
+
+		assertTrue("max in flight " + maxInFlight.get(), maxInFlight.get() <= 3);
+	}
+
+	@Test
+	public void testFailFastSkipsRemaining() throws Exception
+	{
+		AtomicInteger applied = new AtomicInteger();
+		List<Integer> inputs = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+
+		Result<List<Integer>, List<String>> result = ResultFutures.<Integer, Integer, String>traverseFailFast(inputs, i ->
+		{
+			applied.incrementAndGet();
+			return i == 5 ? Error("bad " + i) : Ok(i);
+		}, executor, 1).get(5, TimeUnit.SECONDS);
+
+		assertFalse(result.isOk());
+		assertEquals(List.of("bad 5"), result.unwrapError());
+		assertEquals(6, applied.get());
+	}
+
+	@Test
+	public void testCancelStopsRemaining() throws Exception
+	{
+		CountDownLatch started = new CountDownLatch(1);
+		AtomicInteger applied = new AtomicInteger();
+		List<Integer> inputs = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+
+		ListenableFuture<Result<List<Integer>, List<String>>> future =
+				ResultFutures.<Integer, Integer, String>traverse(inputs, i ->
+				{
+					applied.incrementAndGet();
+					started.countDown();
+					sleep(5);
+					return Ok(i);
+				}, executor, 2);
+
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		assertTrue(future.cancel(true));
+
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		assertTrue("applied " + applied.get(), applied.get() < inputs.size());
+	}
+
+	@Test
+	public void testCancelDoesNotLeakInterrupt() throws Exception
+	{
+		ExecutorService single = Executors.newSingleThreadExecutor();
+		try
+		{
+			for (int i = 0; i < 200; i++)
+			{
+				CountDownLatch started = new CountDownLatch(1);
+				ListenableFuture<Result<List<Integer>, List<String>>> future =
+						ResultFutures.<Integer, Integer, String>traverse(List.of(i), input ->
+						{
+							started.countDown();
+							return Ok(input);
+						}, single, 1);
+
+				started.await(5, TimeUnit.SECONDS);
+				future.cancel(true);
+
+				assertFalse("interrupt leaked on round " + i,
+						single.submit(() -> Thread.currentThread().isInterrupted()).get(5, TimeUnit.SECONDS));
+			}
+		} finally
+		{
+			single.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testTraverseOnSharedPool() throws Exception
+	{
+		List<Integer> inputs = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+
+		Result<List<Integer>, List<String>> result =
+				ResultFutures.<Integer, Integer, String>traverse(inputs, i -> Ok(i + 1), 3).get(5, TimeUnit.SECONDS);
+
+		assertFalse(result.isError());
+		assertEquals(Integer.valueOf(20), result.unwrap().get(19));
+	}
+
+	@Test
+	public void testAwait()
+	{
+		Result<String, List<Throwable>> ok = ResultFutures.await(Futures.immediateFuture(Ok("done")));
+		assertEquals("done", ok.unwrap());
+
+		IllegalStateException failure = new IllegalStateException("failed");
+		Result<String, List<Throwable>> failed = ResultFutures.await(Futures.immediateFailedFuture(failure));
+		assertFalse(failed.isOk());
+		assertEquals(List.of(failure), failed.unwrapError());
+
+		Result<String, List<Throwable>> cancelled = ResultFutures.await(Futures.immediateCancelledFuture());
+		assertFalse(cancelled.isOk());
+	}
+
+	@Test
+	public void testWhenComplete() throws Exception
+	{
+		SettableFuture<Result<String, List<Throwable>>> future = SettableFuture.create();
+		AtomicReference<Result<String, List<Throwable>>> received = new AtomicReference<>();
+
+		ListenableFuture<Void> done = ResultFutures.whenComplete(future, received::set);
+		assertFalse(done.isDone());
+
+		future.setException(new IllegalStateException("failed"));
+		done.get(5, TimeUnit.SECONDS);
+		assertTrue(received.get().isError());
+		assertEquals("failed", received.get().unwrapError().get(0).getMessage());
+	}
+
+	private static void sleep(long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
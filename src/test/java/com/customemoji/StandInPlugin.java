@@ -0,0 +1,77 @@
+package com.customemoji;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.api.Client;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.chat.ChatCommandManager;
+import net.runelite.client.config.ConfigManager;
+import net.runelite.client.game.ChatIconManager;
+import net.runelite.client.input.KeyManager;
+import net.runelite.client.ui.ClientToolbar;
+import net.runelite.client.ui.overlay.OverlayManager;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Builds plugins against stand-in RuneLite services, for the harnesses that drive the plugin outside the client.<br>
+ * Every plugin built by one instance shares the services, so icons are numbered across all of them.
+ */
+public class StandInPlugin
+{
+	// keeps plugin icon indexes clear of the <img=N> tags already present in recorded logs
+	public static final int ICON_OFFSET = 10_000;
+
+	private final AtomicInteger iconId = new AtomicInteger();
+
+	// stub only, so mockito doesn't hold on to every image or message passed in
+	private final ChatIconManager chatIconManager = stub(ChatIconManager.class);
+	private final CustomEmojiConfig config = stub(CustomEmojiConfig.class);
+
+	public StandInPlugin()
+	{
+		when(chatIconManager.registerChatIcon(any(BufferedImage.class))).thenAnswer(a -> iconId.getAndIncrement());
+		when(chatIconManager.chatIconIndex(anyInt())).thenAnswer(a -> ICON_OFFSET + a.<Integer>getArgument(0));
+		when(config.volume()).thenReturn(0);
+	}
+
+	public CustomEmojiPlugin create()
+	{
+		return Guice.createInjector(new AbstractModule()
+		{
+			@Override
+			protected void configure()
+			{
+				bind(ChatIconManager.class).toInstance(chatIconManager);
+				bind(CustomEmojiConfig.class).toInstance(config);
+				bind(ChatCommandManager.class).toInstance(stub(ChatCommandManager.class));
+				bind(ConfigManager.class).toInstance(stub(ConfigManager.class));
+				bind(Client.class).toInstance(stub(Client.class));
+				bind(ClientThread.class).toInstance(stub(ClientThread.class));
+				bind(ScheduledExecutorService.class).toInstance(stub(ScheduledExecutorService.class));
+				bind(OverlayManager.class).toInstance(stub(OverlayManager.class));
+				bind(KeyManager.class).toInstance(stub(KeyManager.class));
+				bind(ClientToolbar.class).toInstance(stub(ClientToolbar.class));
+			}
+		}).getInstance(CustomEmojiPlugin.class);
+	}
+
+	/**
+	 * @return how many chat icons every plugin built so far has registered
+	 */
+	public int getIconsRegistered()
+	{
+		return iconId.get();
+	}
+
+	private static <T> T stub(Class<T> type)
+	{
+		return mock(type, withSettings().stubOnly());
+	}
+}
@@ -0,0 +1,112 @@
+package com.customemoji;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+/**
+ * Generates emoji and soundoji folder trees of arbitrary size for the headless tests.<br>
+ * Files are spread across sub folders the same way a large downloaded pack usually is.
+ */
+public class SyntheticLibrary
+{
+	public static final int EMOJI_SIZE = 18;
+	public static final int FILES_PER_FOLDER = 100;
+
+	public static final AudioFormat SOUNDOJI_FORMAT = new AudioFormat(22050f, 16, 1, true, false);
+	public static final float SOUNDOJI_SECONDS = 0.25f;
+
+	private final Random random;
+
+	public SyntheticLibrary(long seed)
+	{
+		this.random = new Random(seed);
+	}
+
+	public static String emojiName(int i)
+	{
+		return "emoji" + i;
+	}
+
+	public static String soundojiName(int i)
+	{
+		return "soundoji" + i;
+	}
+
+	public void writeEmojis(File root, int count) throws IOException
+	{
+		for (int i = 0; i < count; i++)
+		{
+			writeEmoji(new File(subFolder(root, i), emojiName(i) + ".png"));
+		}
+	}
+
+	public void writeSoundojis(File root, int count) throws IOException
+	{
+		for (int i = 0; i < count; i++)
+		{
+			writeSoundoji(new File(subFolder(root, i), soundojiName(i) + ".wav"));
+		}
+	}
+
+	public void writeEmoji(File file) throws IOException
+	{
+		// 255 colour palette image, same as the README asks users to produce
+		BufferedImage image = new BufferedImage(EMOJI_SIZE, EMOJI_SIZE, BufferedImage.TYPE_BYTE_INDEXED);
+		for (int y = 0; y < EMOJI_SIZE; y++)
+		{
+			for (int x = 0; x < EMOJI_SIZE; x++)
+			{
+				image.setRGB(x, y, random.nextInt(0xFFFFFF) | 0xFF000000);
+			}
+		}
+
+		if (!ImageIO.write(image, "png", file))
+		{
+			throw new IOException("No png writer for " + file);
+		}
+	}
+
+	public void writeSoundoji(File file) throws IOException
+	{
+		int frames = (int) (SOUNDOJI_FORMAT.getFrameRate() * SOUNDOJI_SECONDS);
+		byte[] pcm = new byte[frames * SOUNDOJI_FORMAT.getFrameSize()];
+
+		// short tone with a bit of noise so every file is different
+		double frequency = 220 + random.nextInt(660);
+		for (int i = 0; i < frames; i++)
+		{
+			double t = i / SOUNDOJI_FORMAT.getFrameRate();
+			short sample = (short) (Math.sin(2 * Math.PI * frequency * t) * 8000 + random.nextGaussian() * 200);
+			pcm[i * 2] = (byte) sample;
+			pcm[i * 2 + 1] = (byte) (sample >> 8);
+		}
+
+		try (AudioInputStream in = new AudioInputStream(new ByteArrayInputStream(pcm), SOUNDOJI_FORMAT, frames))
+		{
+			AudioSystem.write(in, AudioFileFormat.Type.WAVE, file);
+		}
+	}
+
+	public static long soundojiPcmBytes()
+	{
+		return (long) (SOUNDOJI_FORMAT.getFrameRate() * SOUNDOJI_SECONDS) * SOUNDOJI_FORMAT.getFrameSize();
+	}
+
+	private static File subFolder(File root, int i) throws IOException
+	{
+		File folder = new File(root, "pack" + (i / FILES_PER_FOLDER));
+		if (!folder.isDirectory() && !folder.mkdirs())
+		{
+			throw new IOException("Failed to create " + folder);
+		}
+		return folder;
+	}
+}
@@ -0,0 +1,92 @@
+package com.customemoji;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TriggerIndexTest
+{
+	@Test
+	public void testComplete()
+	{
+		TriggerIndex index = TriggerIndex.build(List.of(
+				new TriggerIndex.Entry("pog", new File("pog.png"), false),
+				new TriggerIndex.Entry("kekw", new File("kekw.png"), false),
+				new TriggerIndex.Entry("pogchamp", new File("pogchamp.png"), false),
+				new TriggerIndex.Entry("pog", null, true),
+				new TriggerIndex.Entry("pipe", null, true)));
+
+		assertEquals(4, index.size());
+		assertEquals(List.of("pog", "pogchamp"), triggers(index.complete("PO", 10)));
+		assertEquals(List.of("pipe", "pog"), triggers(index.complete("p", 2)));
+		assertEquals(List.of(), triggers(index.complete("z", 10)));
+
+		TriggerIndex.Entry pog = index.complete("pog", 1).get(0);
+		assertEquals(new File("pog.png"), pog.getImage());
+		assertTrue(pog.isSound());
+	}
+
+	@Test
+	public void testEntries()
+	{
+		TriggerIndex index = TriggerIndex.build(List.of(
+				new TriggerIndex.Entry("pog", new File("pog.png"), false),
+				new TriggerIndex.Entry("kekw", new File("kekw.png"), false),
+				new TriggerIndex.Entry("pog", null, true)));
+
+		assertEquals(List.of("kekw", "pog"), triggers(index.entries()));
+		assertEquals(List.of(), TriggerIndex.EMPTY.entries());
+	}
+
+	@Test
+	public void testPrefixQueryLatency()
+	{
+		Random random = new Random(31);
+		List<TriggerIndex.Entry> entries = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++)
+		{
+			entries.add(new TriggerIndex.Entry(randomWord(random), null, false));
+		}
+		TriggerIndex index = TriggerIndex.build(entries);
+
+		List<String> prefixes = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++)
+		{
+			prefixes.add(randomWord(random).substring(0, 2));
+		}
+
+		// warm up
+		prefixes.forEach(p -> index.complete(p, 8));
+
+		long start = System.nanoTime();
+		for (String prefix : prefixes)
+		{
+			index.complete(prefix, 8);
+		}
+		long perQuery = (System.nanoTime() - start) / prefixes.size();
+
+		assertTrue("Prefix query took " + perQuery + " ns", perQuery < TimeUnit.MICROSECONDS.toNanos(100));
+	}
+
+	private static String randomWord(Random random)
+	{
+		StringBuilder sb = new StringBuilder();
+		int length = 3 + random.nextInt(8);
+		for (int i = 0; i < length; i++)
+		{
+			sb.append((char) ('a' + random.nextInt(26)));
+		}
+		return sb.toString();
+	}
+
+	private static List<String> triggers(List<TriggerIndex.Entry> entries)
+	{
+		return entries.stream().map(TriggerIndex.Entry::getTrigger).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,58 @@
+package com.customemoji;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class UsageCountsTest
+{
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testCountsCarryAcrossSessions() throws Exception
+	{
+		File file = new File(temporaryFolder.getRoot(), "usage.txt");
+
+		EmojiStats stats = new EmojiStats();
+		UsageCounts usage = new UsageCounts(stats);
+		usage.load(file);
+		stats.recordHit("kekw");
+		stats.recordHit("kekw");
+		stats.recordHit("pog");
+
+		// saving twice must not count this session twice
+		usage.save(file);
+		usage.save(file);
+
+		assertEquals(List.of("kekw\t2", "pog\t1"), Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+
+		EmojiStats nextStats = new EmojiStats();
+		UsageCounts next = new UsageCounts(nextStats);
+		next.load(file);
+		nextStats.recordHit("pog");
+		nextStats.recordHit("pog");
+
+		assertEquals(2, next.get("kekw"));
+		assertEquals(3, next.get("pog"));
+		assertEquals(0, next.get("monkaw"));
+	}
+
+	@Test
+	public void testIgnoresMalformedLines() throws Exception
+	{
+		File file = temporaryFolder.newFile("usage.txt");
+		Files.write(file.toPath(), List.of("kekw\t5", "garbage", "pog\tmany", "\t3"), StandardCharsets.UTF_8);
+
+		UsageCounts usage = new UsageCounts(new EmojiStats());
+		usage.load(file);
+
+		assertEquals(5, usage.get("kekw"));
+		assertEquals(0, usage.get("pog"));
+	}
+}